@@ -4,6 +4,7 @@ import java.io.*;
 import java.lang.reflect.*;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 
 /**
  * The base class for each day's two problems.
@@ -28,11 +29,14 @@ public class Day26 extends ADay
  * }
  * 
  * If you need support classes, nest them inside your derived day class.
+ * If both parts start by parsing the input the same way, extend ParsedDay instead.
  */
 public abstract class ADay
 {
     private int _day;
     private String _title;
+    private Progress _progress = new Progress();
+    private List<Sample> _samples = new ArrayList<Sample>();
 
     protected ADay(int day, String title)
     {
@@ -60,70 +64,150 @@ public abstract class ADay
     {
         throw new UnsupportedOperationException("Not implemented yet");
     }
+
+    /**
+     * Register a sample input from the puzzle's description, along with the answers
+     * it should give (or null for a part whose answer you don't know).
+     * Call this from the constructor. Samples are solved along with the real input,
+     * and a part whose samples fail isn't solved for the real input.
+     */
+    protected void addSample(String name, String input, Object part1, Object part2)
+    {
+        _samples.add(new Sample(name, input, part1, part2));
+    }
+
+    public List<Sample> getSamples()
+    {
+        return Collections.unmodifiableList(_samples);
+    }
+
+    /**
+     * Override to give this day a memory budget, e.g. "512m".
+     * It only applies when solving in a separate JVM (the "Fork JVM" option),
+     * where it limits the child's heap (-Xmx); going over it fails the part
+     * with an OutOfMemoryError.
+     */
+    public String maxHeap()
+    {
+        return null;
+    }
+
+    /**
+     * Long-running solvers can report their progress here, so the runner
+     * can show that they are still getting somewhere. See Progress.
+     */
+    protected Progress progress()
+    {
+        return _progress;
+    }
+
+    /**
+     * The runner hands each solver the Progress it will watch
+     */
+    void setProgress(Progress progress)
+    {
+        _progress = progress;
+    }
+
+    /**
+     * Long-running solvers should call this every so often (e.g. once per pass of an outer loop).
+     * Solvers run on a background thread, and this throws once the user has pressed Cancel,
+     * or the part has run out of time.
+     */
+    public static void checkCancelled()
+    {
+        if (Thread.currentThread().isInterrupted())
+            throw new CancellationException("Cancelled");
+    }
     
     /**
      * Find all classes that extend ADay
      * They MUST contain a simple public constructor with no arguments.
      */
     public static ADay[] allDays()
+    {
+        return allDays(ClassLoader.getSystemClassLoader(), new ArrayList<String>());
+    }
+
+    /**
+     * Find all classes that extend ADay, at the top of each class folder,
+     * and load them through the given loader (see DayLoader).
+     * Classes that fail to link (e.g. a class file still being written by the compiler)
+     * are skipped, and their names added to broken, so the caller can try again later.
+     */
+    static ADay[] allDays(ClassLoader loader, List<String> broken)
     {
         ArrayList<ADay> list = new ArrayList<ADay>();
-        ClassLoader loader = ClassLoader.getSystemClassLoader();
         Class<?>[] emptyArgs = {};
-        try
+        for (File dir : classRoots())
         {
-            Enumeration<URL> urls = loader.getResources(".");
-            while (urls.hasMoreElements())
+            File[] files = dir.listFiles();
+            if (files == null)
+                continue;
+            System.err.println("Reflecting on classed in " + dir);
+            for (File file : files) 
             {
-                URL url = urls.nextElement();
-                File dir = new File(url.getFile());
-                File[] files = dir.listFiles();
-                System.out.println("Reflecting on classed in " + dir);
-                for (File file : files) 
+                if (file.getName().endsWith(".class")) 
                 {
-                    if (file.getName().endsWith(".class")) 
+                    String name = file.getName();
+                    name = name.substring(0, name.length() - 6);  // strip .class
+                    try
                     {
-                        String name = file.getName();
-                        name = name.substring(0, name.length() - 6);  // strip .class
-                        try
-                        {
-                            Class<?> c = Class.forName(name);
-                            Type t = c.getGenericSuperclass();
-                            while (t != null && t != Object.class)
-                            {
-                                if (t == ADay.class)
-                                {
-                                    Constructor<?> ctor = c.getConstructor(emptyArgs);
-                                    ADay day = (ADay)ctor.newInstance((Object[])emptyArgs);
-                                    list.add(day);
-                                    // System.out.println("Found class " + name);
-                                    break;
-                                }
-                                t = t.getClass().getGenericSuperclass();
-                            }
-                        }
-                        catch (ClassNotFoundException ex)
-                        {
-                            System.out.println("   Unable to reflect on class " + name);
-                        }
-                        catch (Exception ex)
+                        Class<?> c = Class.forName(name, true, loader);
+                        // Days may extend ADay directly, or through ParsedDay
+                        if (ADay.class.isAssignableFrom(c) && !Modifier.isAbstract(c.getModifiers()))
                         {
-                            System.out.println("   Does not have a plain constructor: public " + name + "()");
+                            Constructor<?> ctor = c.getConstructor(emptyArgs);
+                            ADay day = (ADay)ctor.newInstance((Object[])emptyArgs);
+                            list.add(day);
+                            // System.out.println("Found class " + name);
                         }
                     }
+                    catch (ClassNotFoundException ex)
+                    {
+                        System.err.println("   Unable to reflect on class " + name);
+                    }
+                    catch (LinkageError ex)
+                    {
+                        System.err.println("   Unable to load class " + name + ": " + ex);
+                        broken.add(name);
+                    }
+                    catch (Exception ex)
+                    {
+                        System.err.println("   Does not have a plain constructor: public " + name + "()");
+                    }
                 }
             }
         }
-        catch (IOException ex)
-        {
-            System.out.println(ex.getMessage());
-        }
 
         list.sort(new DayComparator());
 
         return list.toArray(new ADay[list.size()]);
     }
 
+    /**
+     * The folders on the class path, where the day classes are compiled to
+     */
+    static List<File> classRoots()
+    {
+        List<File> roots = new ArrayList<File>();
+        try
+        {
+            Enumeration<URL> urls = ClassLoader.getSystemClassLoader().getResources(".");
+            while (urls.hasMoreElements())
+            {
+                URL url = urls.nextElement();
+                if ("file".equals(url.getProtocol()))
+                    roots.add(new File(url.getFile()));
+            }
+        }
+        catch (IOException ex)
+        {
+            System.err.println(ex.getMessage());
+        }
+        return roots;
+    }
+
     /**
      * Helper class to sort days we discover via reflection.
      */
@@ -0,0 +1,93 @@
+package AoC;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Remembers each part's answer on disk, so re-running an unchanged day is instant.
+ *
+ * There is one file per year, day and part. It records the hash of the input
+ * and the hash of the day's code (see CodeHash) that produced the answer.
+ * A lookup only hits if both still match, so editing either the input or the
+ * solver invalidates the answer automatically; the next solve overwrites it.
+ */
+class AnswerCache
+{
+    private static File file(int year, int day, int part)
+    {
+        return new File(Storage.dir("answers"), year + "-day" + day + "-part" + part + ".properties");
+    }
+
+    /**
+     * Look up a previous answer.
+     *
+     * @return a cached result, or null if there isn't a valid one
+     */
+    static Result get(int year, ADay day, int part, Input input)
+    {
+        File file = file(year, day.getDay(), part);
+        if (!file.exists())
+            return null;
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(file))
+        {
+            props.load(in);
+        }
+        catch (IOException ex)
+        {
+            return null;
+        }
+
+        if (!input.hash().equals(props.getProperty("input"))
+                || !CodeHash.of(day.getClass()).equals(props.getProperty("code"))
+                || props.getProperty("answer") == null)
+            return null;
+
+        Result result = new Result(day.getDay(), part);
+        result.status = Result.Status.SOLVED;
+        result.answer = props.getProperty("answer");
+        result.nanos = Long.parseLong(props.getProperty("nanos", "0"));
+        result.cached = true;
+        return result;
+    }
+
+    /**
+     * Remember a freshly solved answer (replacing any older one for the same part)
+     */
+    static void put(int year, ADay day, Input input, Result result)
+    {
+        if (result.status != Result.Status.SOLVED || result.cached)
+            return;
+        Properties props = new Properties();
+        props.setProperty("input", input.hash());
+        props.setProperty("code", CodeHash.of(day.getClass()));
+        props.setProperty("answer", result.answer);
+        props.setProperty("nanos", Long.toString(result.nanos));
+
+        // Write to a temp file, then swap it in, so a reader never sees half a file
+        File file = file(year, day.getDay(), result.getPart());
+        File temp = null;
+        try
+        {
+            temp = File.createTempFile("answer", ".tmp", file.getParentFile());
+            try (OutputStream out = new FileOutputStream(temp))
+            {
+                props.store(out, day.toString() + ", part " + result.getPart());
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        catch (IOException ex)
+        {
+            System.out.println("Unable to cache answer: " + ex.getMessage());
+            if (temp != null)
+                temp.delete();
+        }
+    }
+}
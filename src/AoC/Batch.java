@@ -0,0 +1,272 @@
+package AoC;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Solves a day's samples (see ADay.addSample()) and its real input, both parts of each,
+ * all at the same time.
+ *
+ * Each sample's answers are checked against the expected ones. As soon as a sample
+ * fails a part, that part of the real input is cancelled: there's no point waiting
+ * for an answer that is probably wrong.
+ */
+public class Batch
+{
+    /** The name of the real input, in outcomes and reports */
+    public static final String REAL_INPUT = "input";
+
+    /**
+     * One part of one input, once it's done
+     */
+    public static class Outcome
+    {
+        /** The sample's name, or REAL_INPUT */
+        public final String input;
+        /** The answer the sample should give, or null if it isn't known (or this is the real input) */
+        public final String expected;
+        public final Result result;
+
+        Outcome(String input, String expected, Result result)
+        {
+            this.input = input;
+            this.expected = expected;
+            this.result = result;
+        }
+
+        public boolean isSample()
+        {
+            return !REAL_INPUT.equals(input);
+        }
+
+        /**
+         * Did a sample give the right answer? Null if there was nothing to check,
+         * e.g. an unimplemented part, or an answer that isn't known.
+         * A sample that crashes or times out always fails.
+         */
+        public Boolean passed()
+        {
+            if (!isSample())
+                return null;
+            switch (result.status)
+            {
+            case SOLVED:
+                return expected == null ? null : expected.equals(result.answer);
+            case FAILED:
+            case TIMED_OUT:
+                return false;
+            default:
+                return null;
+            }
+        }
+
+        /**
+         * One line of the report
+         */
+        public String toString()
+        {
+            Boolean passed = passed();
+            String verdict = passed == null ? "" : passed ? "PASS" : "FAIL";
+            String answer = result.answer;
+            if (Boolean.FALSE.equals(passed) && expected != null)
+                answer += " (expected " + expected + ")";
+            return String.format("%-16s part %d  %-4s  %-11s  %s", input, result.getPart(), verdict, result.timeText(), answer);
+        }
+
+        public String toJson()
+        {
+            return new Json()
+                    .add("input", input)
+                    .add("part", result.getPart())
+                    .add("status", result.status)
+                    .add("answer", result.answer)
+                    .add("expected", expected)
+                    .add("passed", passed())
+                    .add("nanos", result.nanos)
+                    .toString();
+        }
+    }
+
+    private final Consumer<Outcome> _listener;
+    private final List<Runner.Task> _tasks = new ArrayList<Runner.Task>();
+    private final List<Outcome> _outcomes = new ArrayList<Outcome>();
+    private final Runner.Task[] _real = new Runner.Task[2];
+    /** Why each part of the real input was skipped, if it was */
+    private final String[] _skipped = new String[2];
+    private int _samples;
+    private int _size;
+    private int _pending;
+
+    private Batch(Consumer<Outcome> listener)
+    {
+        _listener = listener;
+    }
+
+    /**
+     * Start solving a day's samples, and the real input, on background threads.
+     * Samples are solved as plain one-off runs: they aren't forked, profiled, cached
+     * or added to the history. The real input is solved with the given options.
+     *
+     * @param samples usually day.getSamples(); may be empty, to solve just the real input
+     * @param input the real input, or null to solve just the samples
+     * @param listener is called once for each part of each input, on an arbitrary thread
+     */
+    public static Batch start(ADay day, List<Sample> samples, Input input, Runner.Options options, Consumer<Outcome> listener)
+    {
+        Batch batch = new Batch(listener);
+        Runner.Options sampleOptions = new Runner.Options();
+        sampleOptions.year = options.year;
+        sampleOptions.timeoutMillis = options.timeoutMillis;
+        sampleOptions.record = false;
+
+        synchronized (batch)
+        {
+            batch._samples = samples.size();
+            batch._size = batch._pending = 2 * samples.size() + (input == null ? 0 : 2);
+            for (int part = 1; part <= 2; part++)
+            {
+                if (input != null)
+                {
+                    batch._real[part - 1] = Runner.start(day, part, input, options, batch.listen(REAL_INPUT, null));
+                    batch._tasks.add(batch._real[part - 1]);
+                }
+                for (Sample sample : samples)
+                {
+                    String expected = sample.expected(part);
+                    batch._tasks.add(Runner.start(day, part, sample.getInput(), sampleOptions, batch.listen(sample.getName(), expected)));
+                }
+            }
+        }
+        return batch;
+    }
+
+    private Consumer<Result> listen(String input, String expected)
+    {
+        return result -> {
+            Outcome outcome = new Outcome(input, expected, result);
+            synchronized (this)
+            {
+                String skipped = _skipped[result.getPart() - 1];
+                if (!outcome.isSample() && skipped != null && result.status == Result.Status.CANCELLED)
+                    result.answer = skipped;
+                _outcomes.add(outcome);
+                _pending--;
+                if (Boolean.FALSE.equals(outcome.passed()))
+                    skip(result.getPart(), "Skipped: sample \"" + input + "\" failed");
+            }
+            _listener.accept(outcome);
+        };
+    }
+
+    /**
+     * Cancel one part of the real input (if it's still running)
+     */
+    private void skip(int part, String reason)
+    {
+        Runner.Task real = _real[part - 1];
+        if (real != null && !real.isFinished() && _skipped[part - 1] == null)
+        {
+            _skipped[part - 1] = reason;
+            real.cancel();
+        }
+    }
+
+    /**
+     * How many outcomes there will be: two for each input
+     */
+    public int size()
+    {
+        return _size;
+    }
+
+    public boolean hasSamples()
+    {
+        return _samples > 0;
+    }
+
+    /**
+     * The real input's task for part 1 or 2, or null if there's no real input
+     */
+    public Runner.Task task(int part)
+    {
+        return _real[part - 1];
+    }
+
+    public void cancel()
+    {
+        for (Runner.Task task : _tasks)
+            task.cancel();
+    }
+
+    /**
+     * Has every part of every input reported back?
+     */
+    public synchronized boolean isFinished()
+    {
+        return _pending == 0;
+    }
+
+    /**
+     * Did any sample fail (so far)?
+     */
+    public synchronized boolean failed()
+    {
+        for (Outcome outcome : _outcomes)
+        {
+            if (Boolean.FALSE.equals(outcome.passed()))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * One line to sum up the samples, e.g. "Samples: 3 passed, 1 failed, 2 unchecked"
+     */
+    public synchronized String summary()
+    {
+        int passed = 0, failed = 0, unchecked = 0;
+        for (Outcome outcome : _outcomes)
+        {
+            if (!outcome.isSample())
+                continue;
+            Boolean verdict = outcome.passed();
+            if (verdict == null)
+                unchecked++;
+            else if (verdict)
+                passed++;
+            else
+                failed++;
+        }
+        StringBuilder summary = new StringBuilder("Samples: " + passed + " passed");
+        if (failed > 0)
+            summary.append(", " + failed + " failed");
+        if (unchecked > 0)
+            summary.append(", " + unchecked + " unchecked");
+        for (int part = 1; part <= 2; part++)
+        {
+            if (_skipped[part - 1] != null)
+                summary.append("; part " + part + " of the real input skipped");
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Every outcome so far, one line each, grouped by input
+     */
+    public synchronized String report()
+    {
+        List<Outcome> sorted = new ArrayList<Outcome>(_outcomes);
+        // Samples first, by name; then the real input
+        sorted.sort((a, b) -> {
+            if (a.isSample() != b.isSample())
+                return a.isSample() ? -1 : 1;
+            int byName = a.input.compareTo(b.input);
+            return byName != 0 ? byName : a.result.getPart() - b.result.getPart();
+        });
+        StringBuilder report = new StringBuilder();
+        for (Outcome outcome : sorted)
+            report.append(outcome).append('\n');
+        return report.toString();
+    }
+}
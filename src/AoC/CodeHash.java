@@ -0,0 +1,113 @@
+package AoC;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A hash of a day's compiled code: its class file, plus the class files of any
+ * classes nested inside it (including anonymous ones, like Day5$1).
+ * If the code changes, so does the hash, which invalidates anything cached for it.
+ */
+class CodeHash
+{
+    /**
+     * Loaded classes never change, so each one is only hashed once
+     */
+    private static final Map<Class<?>, String> hashes = new WeakHashMap<Class<?>, String>();
+
+    static synchronized String of(Class<?> c)
+    {
+        String hash = hashes.get(c);
+        if (hash == null)
+        {
+            hash = compute(c);
+            hashes.put(c, hash);
+        }
+        return hash;
+    }
+
+    private static String compute(Class<?> c)
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (String name : classFiles(c))
+        {
+            bytes.write(0);  // keep file boundaries distinct
+            bytes.write(name.getBytes(), 0, name.length());
+            try (InputStream in = c.getResourceAsStream(name))
+            {
+                if (in != null)
+                    copy(in, bytes);
+            }
+            catch (IOException ex)
+            {
+                // Hash whatever we could read; the name alone still identifies the class
+            }
+        }
+        return Input.sha256(bytes.toByteArray());
+    }
+
+    /**
+     * The class file of a class and all its nested classes, as resource names
+     * relative to the class
+     */
+    private static List<String> classFiles(Class<?> c)
+    {
+        String simple = c.getName().substring(c.getName().lastIndexOf('.') + 1);
+        List<String> names = new ArrayList<String>();
+        names.add(simple + ".class");
+
+        // Compiled to a folder? Then list its siblings, to find anonymous and local classes too
+        URL url = c.getResource(simple + ".class");
+        if (url != null && "file".equals(url.getProtocol()))
+        {
+            try
+            {
+                String[] files = new File(url.toURI()).getParentFile().list();
+                if (files != null)
+                {
+                    Arrays.sort(files);
+                    for (String file : files)
+                    {
+                        if (file.startsWith(simple + "$") && file.endsWith(".class"))
+                            names.add(file);
+                    }
+                    return names;
+                }
+            }
+            catch (URISyntaxException | IllegalArgumentException ex)
+            {
+                // fall through to the reflective search
+            }
+        }
+
+        // Otherwise (e.g. in a jar), settle for the named nested classes
+        addNested(c, names);
+        return names;
+    }
+
+    private static void addNested(Class<?> c, List<String> names)
+    {
+        for (Class<?> nested : c.getDeclaredClasses())
+        {
+            names.add(nested.getName().substring(nested.getName().lastIndexOf('.') + 1) + ".class");
+            addNested(nested, names);
+        }
+    }
+
+    private static void copy(InputStream in, ByteArrayOutputStream out) throws IOException
+    {
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0)
+            out.write(buffer, 0, n);
+    }
+}
@@ -0,0 +1,395 @@
+package AoC;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A long-lived solver process, so repeated solves don't pay for JVM startup,
+ * day discovery and a cold JIT every time.
+ *
+ * Start the daemon once:
+ *   java -cp bin AoC.Daemon [--port P] [--year Y]
+ * Then solve through the thin client:
+ *   java -cp bin AoC.Daemon --client [--port P] day part|all input-file
+ *
+ * Days recompiled while the daemon runs are swapped in for the next request (see DayLoader).
+ *
+ * The daemon only listens on the loopback address. The protocol is line-based UTF-8,
+ * and a connection may send any number of requests:
+ *   SOLVE day part [options] FILE path    solve, reading the input from a file
+ *   SOLVE day part [options] DATA bytes   solve, with the input following the line
+ *   LIST                                  the days it knows, one JSON line each, then END
+ *   SHUTDOWN                              stop the daemon
+ * where the options are any of:
+ *   nocache      solve even if the answer is cached
+ *   runs=N       time N runs, and compare them with the history
+ *   timeout=S    give up after S seconds (default 60, 0 for no limit)
+ * Each SOLVE is answered with one line of JSON (see Result.toJson()),
+ * or {"error":"..."} if the request itself was bad.
+ */
+public class Daemon
+{
+    public static final int DEFAULT_PORT = 5225;
+    public static final int DEFAULT_TIMEOUT_SECONDS = 60;
+
+    /** The most input a DATA request may send */
+    private static final int MAX_DATA_BYTES = 1 << 28;
+
+    private final int _year;
+    private final DayLoader _loader = new DayLoader();
+    private final Map<Integer, ADay> _days = new HashMap<Integer, ADay>();
+    private final ExecutorService _connections = Executors.newCachedThreadPool();
+    private ServerSocket _server;
+
+    Daemon(int year)
+    {
+        _year = year;
+        for (ADay day : _loader.days())
+            _days.put(day.getDay(), day);
+    }
+
+    /**
+     * The days by number, swapping in any that were recompiled since the last request
+     */
+    private Map<Integer, ADay> days()
+    {
+        synchronized (_days)
+        {
+            ADay[] reloaded = _loader.reloadIfChanged();
+            if (reloaded != null)
+            {
+                _days.clear();
+                for (ADay day : reloaded)
+                    _days.put(day.getDay(), day);
+            }
+            return new HashMap<Integer, ADay>(_days);
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        int port = DEFAULT_PORT;
+        int year = JAdvent.year;
+        boolean client = false;
+        int arg = 0;
+        for (; arg < args.length && args[arg].startsWith("--"); arg++)
+        {
+            switch (args[arg])
+            {
+            case "--port":
+                port = Integer.parseInt(args[++arg]);
+                break;
+            case "--year":
+                year = Integer.parseInt(args[++arg]);
+                break;
+            case "--client":
+                client = true;
+                break;
+            default:
+                usage("Unknown option " + args[arg]);
+            }
+        }
+
+        if (client)
+        {
+            if (args.length - arg != 3)
+                usage(null);
+            System.exit(client(port, args[arg], args[arg + 1], args[arg + 2]) ? 0 : 1);
+        }
+        if (args.length != arg)
+            usage(null);
+        new Daemon(year).serve(port);
+    }
+
+    /**
+     * Accept connections until told to shut down
+     */
+    void serve(int port) throws IOException
+    {
+        _server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        System.err.println("Solver daemon for " + _year + " listening on " + _server.getLocalSocketAddress()
+                + " with " + _days.size() + " days");
+        try
+        {
+            while (true)
+            {
+                Socket socket = _server.accept();
+                _connections.execute(() -> handle(socket));
+            }
+        }
+        catch (IOException ex)
+        {
+            // closed by SHUTDOWN
+        }
+        _connections.shutdownNow();
+    }
+
+    /**
+     * Answer one connection's requests, until it closes
+     */
+    private void handle(Socket socket)
+    {
+        try (Socket s = socket)
+        {
+            InputStream in = new BufferedInputStream(s.getInputStream());
+            PrintWriter out = new PrintWriter(s.getOutputStream(), true);
+            String line;
+            while ((line = readLine(in)) != null)
+            {
+                String[] words = line.trim().split("\\s+");
+                switch (words[0].toUpperCase())
+                {
+                case "SOLVE":
+                    out.println(solve(words, in));
+                    break;
+                case "LIST":
+                    for (ADay day : days().values())
+                        out.println(new Json().add("day", day.getDay()).add("title", day.getTitle()));
+                    out.println("END");
+                    break;
+                case "SHUTDOWN":
+                    out.println(new Json().add("shutdown", true));
+                    _server.close();
+                    return;
+                case "":
+                    break;
+                default:
+                    out.println(error("Unknown request: " + words[0]));
+                    break;
+                }
+            }
+        }
+        catch (IOException ex)
+        {
+            System.err.println("Connection failed: " + ex.getMessage());
+        }
+        catch (InterruptedException ex)
+        {
+            // shutting down
+        }
+    }
+
+    /**
+     * SOLVE day part [nocache] [runs=N] [timeout=S] FILE path | DATA bytes
+     */
+    private String solve(String[] words, InputStream in) throws IOException, InterruptedException
+    {
+        // Find the input first: DATA must always be read, even for a bad request, to keep the connection in step
+        int w = 3;
+        while (w < words.length && !words[w].equalsIgnoreCase("FILE") && !words[w].equalsIgnoreCase("DATA"))
+            w++;
+        if (w + 1 >= words.length)
+            return error("Expected: SOLVE day part [nocache] [runs=N] [timeout=S] FILE path | DATA bytes");
+        Input input;
+        if (words[w].equalsIgnoreCase("DATA"))
+        {
+            long length;
+            try
+            {
+                length = Long.parseLong(words[w + 1]);
+            }
+            catch (NumberFormatException ex)
+            {
+                // Whatever data was sent will be read as (bad) requests, and answered with errors
+                return error("Bad DATA length: " + words[w + 1]);
+            }
+            if (length < 0)
+                return error("Bad DATA length: " + length);
+            if (length > MAX_DATA_BYTES)
+            {
+                skipBytes(in, length);
+                return error("DATA is " + length + " bytes, more than the limit of " + MAX_DATA_BYTES);
+            }
+            input = new Input(new String(readBytes(in, (int) length), StandardCharsets.UTF_8));
+        }
+        else
+        {
+            String path = String.join(" ", Arrays.asList(words).subList(w + 1, words.length));
+            try
+            {
+                input = Input.read(new File(path));
+            }
+            catch (IOException ex)
+            {
+                return error("Unable to read " + path + ": " + ex);
+            }
+        }
+
+        Runner.Options options = new Runner.Options();
+        options.year = _year;
+        options.useCache = true;
+        options.timeoutMillis = DEFAULT_TIMEOUT_SECONDS * 1000L;
+        for (int i = 3; i < w; i++)
+        {
+            String option = words[i].toLowerCase();
+            try
+            {
+                if (option.equals("nocache"))
+                    options.useCache = false;
+                else if (option.matches("runs=[1-9]\\d*"))
+                    options.iterations = Integer.parseInt(option.substring(5));
+                else if (option.matches("timeout=\\d+"))
+                    options.timeoutMillis = Math.multiplyExact(Long.parseLong(option.substring(8)), 1000L);
+                else
+                    return error("Unknown option: " + words[i]);
+            }
+            catch (ArithmeticException | NumberFormatException ex)
+            {
+                return error("Option out of range: " + words[i]);
+            }
+        }
+
+        ADay day;
+        int part;
+        try
+        {
+            day = days().get(Integer.parseInt(words[1]));
+            part = Integer.parseInt(words[2]);
+        }
+        catch (NumberFormatException ex)
+        {
+            return error("Bad day or part: " + ex.getMessage());
+        }
+        if (day == null)
+            return error("No class found for day " + words[1]);
+        if (part != 1 && part != 2)
+            return error("Part must be 1 or 2");
+        return solve(day, part, input, options);
+    }
+
+    /**
+     * Solve on a runner thread, so the timeout can stop a solver that never returns
+     */
+    private static String solve(ADay day, int part, Input input, Runner.Options options) throws InterruptedException
+    {
+        CountDownLatch done = new CountDownLatch(1);
+        String[] json = new String[1];
+        Runner.Task task = Runner.start(day, part, input, options, result -> {
+            json[0] = result.toJson();
+            done.countDown();
+        });
+        try
+        {
+            done.await();
+        }
+        catch (InterruptedException ex)
+        {
+            // The daemon is shutting down
+            task.cancel();
+            throw ex;
+        }
+        return json[0];
+    }
+
+    private static String error(String message)
+    {
+        return new Json().add("error", message).toString();
+    }
+
+    /**
+     * Read a line of UTF-8 text, without reading past it (binary data may follow)
+     */
+    private static String readLine(InputStream in) throws IOException
+    {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) >= 0 && b != '\n')
+        {
+            if (b != '\r')
+                line.write(b);
+        }
+        if (b < 0 && line.size() == 0)
+            return null;
+        return new String(line.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(InputStream in, int count) throws IOException
+    {
+        byte[] bytes = new byte[count];
+        int read = 0;
+        while (read < count)
+        {
+            int n = in.read(bytes, read, count - read);
+            if (n < 0)
+                throw new EOFException("Expected " + count + " bytes of input, got " + read);
+            read += n;
+        }
+        return bytes;
+    }
+
+    private static void skipBytes(InputStream in, long count) throws IOException
+    {
+        byte[] buffer = new byte[8192];
+        while (count > 0)
+        {
+            int n = in.read(buffer, 0, (int) Math.min(buffer.length, count));
+            if (n < 0)
+                throw new EOFException("Expected " + count + " more bytes of input");
+            count -= n;
+        }
+    }
+
+    /**
+     * The thin client: send one or both parts to the daemon, and print each JSON result
+     *
+     * @return true if no part failed
+     */
+    static boolean client(int port, String day, String part, String file) throws IOException
+    {
+        String[] parts = part.equalsIgnoreCase("all") ? new String[] { "1", "2" } : new String[] { part };
+        byte[] data = file.equals("-") ? Headless.read("-").getBytes(StandardCharsets.UTF_8) : null;
+        boolean ok = true;
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port))
+        {
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            for (String p : parts)
+            {
+                String request = "SOLVE " + day + " " + p + " ";
+                if (data == null)
+                {
+                    out.write((request + "FILE " + new File(file).getAbsolutePath() + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+                else
+                {
+                    out.write((request + "DATA " + data.length + "\n").getBytes(StandardCharsets.UTF_8));
+                    out.write(data);
+                }
+                out.flush();
+                String response = readLine(in);
+                if (response == null)
+                    throw new EOFException("The daemon closed the connection");
+                System.out.println(response);
+                Object status = Json.parse(response).get("status");
+                if (!"SOLVED".equals(status) && !"UNIMPLEMENTED".equals(status))
+                    ok = false;
+            }
+        }
+        return ok;
+    }
+
+    static void usage(String error)
+    {
+        if (error != null)
+            System.err.println(error);
+        System.err.println("Usage: java AoC.Daemon [--port P] [--year Y]");
+        System.err.println("   or: java AoC.Daemon --client [--port P] day part|all input-file");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,171 @@
+package AoC;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the day classes through a disposable class loader, so that a recompiled
+ * day can be swapped in without restarting the JVM.
+ *
+ * The AoC classes (Reader, MD5, the runner...) always come from the normal class path,
+ * so they stay loaded, and keep their JIT-compiled code, across reloads. Everything
+ * else found in the class folders (the days, and their nested classes) is loaded
+ * by a new child loader after each change.
+ *
+ * The class folders are watched for changed class files. Nothing is swapped while a
+ * solve is running: the caller asks for the new days when it is ready for them
+ * (JAdvent, on the next Execute).
+ */
+class DayLoader
+{
+    private final List<File> _roots;
+    private volatile boolean _changed;
+    private ADay[] _days;
+
+    DayLoader()
+    {
+        _roots = ADay.classRoots();
+        _days = load();
+        watch();
+    }
+
+    /**
+     * The days found at the latest (re)load
+     */
+    synchronized ADay[] days()
+    {
+        return _days;
+    }
+
+    /**
+     * If any class file changed since the last load, find the days again through a new loader.
+     *
+     * @return the new days, or null if nothing changed
+     */
+    synchronized ADay[] reloadIfChanged()
+    {
+        if (!_changed)
+            return null;
+        _changed = false;
+        _days = load();
+        return _days;
+    }
+
+    private ADay[] load()
+    {
+        URL[] urls = new URL[_roots.size()];
+        try
+        {
+            for (int i = 0; i < urls.length; i++)
+                urls[i] = _roots.get(i).toURI().toURL();
+        }
+        catch (MalformedURLException ex)
+        {
+            System.err.println("Unable to reload days: " + ex.getMessage());
+            return ADay.allDays();
+        }
+        List<String> broken = new ArrayList<String>();
+        ADay[] days = ADay.allDays(new ChildFirst(urls, DayLoader.class.getClassLoader()), broken);
+        // Probably caught the compiler mid-write: load again next time, when it should be finished
+        if (!broken.isEmpty())
+            _changed = true;
+        return days;
+    }
+
+    /**
+     * Flag a change whenever a class file in a class folder is written or deleted.
+     * (Days are only discovered at the top of each folder, so that's all we watch.)
+     */
+    private void watch()
+    {
+        WatchService watcher;
+        try
+        {
+            watcher = FileSystems.getDefault().newWatchService();
+            for (File root : _roots)
+            {
+                root.toPath().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+        catch (IOException | UnsupportedOperationException ex)
+        {
+            System.err.println("Not watching for recompiled days: " + ex.getMessage());
+            return;
+        }
+
+        Thread thread = new Thread(() -> {
+            try
+            {
+                while (true)
+                {
+                    WatchKey key = watcher.take();
+                    for (WatchEvent<?> event : key.pollEvents())
+                    {
+                        Object context = event.context();
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                                || context instanceof Path && context.toString().endsWith(".class"))
+                        {
+                            _changed = true;
+                        }
+                    }
+                    key.reset();
+                }
+            }
+            catch (InterruptedException ex)
+            {
+                // stop watching
+            }
+        }, "AoC-class-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Finds classes in its own folders before asking its parent,
+     * except for the AoC library and the JDK, which must be shared with the runner.
+     */
+    private static class ChildFirst extends URLClassLoader
+    {
+        ChildFirst(URL[] urls, ClassLoader parent)
+        {
+            super(urls, parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+        {
+            if (name.startsWith("AoC.") || name.startsWith("java.") || name.startsWith("javax."))
+                return super.loadClass(name, resolve);
+            synchronized (getClassLoadingLock(name))
+            {
+                Class<?> c = findLoadedClass(name);
+                if (c == null)
+                {
+                    try
+                    {
+                        c = findClass(name);
+                    }
+                    catch (ClassNotFoundException ex)
+                    {
+                        return super.loadClass(name, resolve);
+                    }
+                }
+                if (resolve)
+                    resolveClass(c);
+                return c;
+            }
+        }
+    }
+}
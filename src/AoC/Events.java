@@ -0,0 +1,201 @@
+package AoC;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events, so that a recording (viewed in JDK Mission Control)
+ * shows where each run's time went: parsing vs. solving, part 1 vs. part 2,
+ * bulk Reader work, and batches of MD5 hashes.
+ *
+ * The events cost next to nothing unless a recording is running.
+ * JFR needs Java 11, or Java 8 update 262 or later; on anything older,
+ * available is false, and no events are created.
+ */
+public class Events
+{
+    /**
+     * Can we use JFR at all? Callers must check this before touching any event class.
+     */
+    public static final boolean available = hasFlightRecorder();
+
+    /**
+     * MD5 hashes are too quick to record one at a time, so each thread
+     * counts them into a batch, and records the batch every so often.
+     */
+    private static final int HASH_BATCH = 4096;
+    private static final ThreadLocal<HashBatch> hashBatches = new ThreadLocal<HashBatch>();
+
+    private static boolean hasFlightRecorder()
+    {
+        try
+        {
+            Class.forName("jdk.jfr.FlightRecorder");
+            return true;
+        }
+        catch (ClassNotFoundException | LinkageError ex)
+        {
+            return false;
+        }
+    }
+
+    @Name("AoC.Solve")
+    @Label("Solve")
+    @Category({ "Advent of Code" })
+    @Description("One part of one day, from start to finish")
+    @StackTrace(false)
+    public static class Solve extends jdk.jfr.Event
+    {
+        @Label("Day")
+        int day;
+        @Label("Part")
+        int part;
+        @Label("Status")
+        String status;
+    }
+
+    @Name("AoC.Parse")
+    @Label("Parse")
+    @Category({ "Advent of Code" })
+    @Description("The shared parse stage of a ParsedDay")
+    @StackTrace(false)
+    public static class Parse extends jdk.jfr.Event
+    {
+        @Label("Day")
+        int day;
+    }
+
+    @Name("AoC.ParseBlock")
+    @Label("Parse Block")
+    @Category({ "Advent of Code" })
+    @Description("A bulk Reader operation, such as splitting the input into lines")
+    public static class ParseBlock extends jdk.jfr.Event
+    {
+        @Label("Operation")
+        String operation;
+        @Label("Characters")
+        int chars;
+        @Label("Lines")
+        int lines;
+    }
+
+    @Name("AoC.HashBatch")
+    @Label("Hash Batch")
+    @Category({ "Advent of Code" })
+    @Description("A batch of MD5 hashes on one thread")
+    @StackTrace(false)
+    public static class HashBatch extends jdk.jfr.Event
+    {
+        @Label("Hashes")
+        int count;
+        @Label("Bytes Hashed")
+        long bytes;
+    }
+
+    /**
+     * Start timing a solve (or return null if JFR is unavailable)
+     */
+    static Solve beginSolve(int day, int part)
+    {
+        if (!available)
+            return null;
+        Solve event = new Solve();
+        event.day = day;
+        event.part = part;
+        event.begin();
+        return event;
+    }
+
+    static void endSolve(Solve event, Result result)
+    {
+        if (event == null)
+            return;
+        event.status = String.valueOf(result.status);
+        event.commit();
+    }
+
+    /**
+     * Start timing a shared parse (or return null if JFR is unavailable)
+     */
+    static Parse beginParse(int day)
+    {
+        if (!available)
+            return null;
+        Parse event = new Parse();
+        event.day = day;
+        event.begin();
+        return event;
+    }
+
+    static void endParse(Parse event)
+    {
+        if (event != null)
+            event.commit();
+    }
+
+    /**
+     * Start timing a bulk Reader operation (or return null if JFR is unavailable)
+     */
+    static ParseBlock beginParseBlock(String operation)
+    {
+        if (!available)
+            return null;
+        ParseBlock event = new ParseBlock();
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    static void endParseBlock(ParseBlock event, int chars, int lines)
+    {
+        if (event == null)
+            return;
+        event.chars = chars;
+        event.lines = lines;
+        event.commit();
+    }
+
+    /**
+     * Count one MD5 hash into this thread's current batch
+     */
+    static void hashed(int bytes)
+    {
+        if (!available)
+            return;
+        HashBatch batch = hashBatches.get();
+        if (batch == null)
+        {
+            batch = new HashBatch();
+            hashBatches.set(batch);
+        }
+        if (batch.count == 0)
+        {
+            // Not recording? Then keep the (unstarted) batch for next time, and do nothing
+            if (!batch.isEnabled())
+                return;
+            batch.begin();
+        }
+        batch.count++;
+        batch.bytes += bytes;
+        if (batch.count >= HASH_BATCH)
+            flushHashes();
+    }
+
+    /**
+     * Record this thread's partial batch of hashes (e.g. at the end of a solve)
+     */
+    static void flushHashes()
+    {
+        if (!available)
+            return;
+        HashBatch batch = hashBatches.get();
+        if (batch != null && batch.count > 0)
+        {
+            batch.commit();
+            hashBatches.remove();
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package AoC;
 
-import java.util.HashMap;
+import AoC.collections.Counter;
 
 /**
  * Example implementation of a day's puzzle.
@@ -12,6 +12,9 @@ public class Example extends ADay
     {
         // pass -1 as the day, just to avoid collision with any actual days later
         super(-1, "Example");
+
+        // The examples from the puzzle text below, with their answers for part 1 and part 2
+        addSample("partridge", "3 french hens 2 turtle doves and a partridge in a pair tree", "a", "french");
     }
 
     /**
@@ -24,63 +27,24 @@ public class Example extends ADay
      */
     public Object solvePart1(Reader input) 
     {
-        HashMap<String, Integer> dictionary = new HashMap<String, Integer>();
+        // Counting words is common enough that there's a WordCounter for it.
+        // It counts each word where it lies in the input, so a word only becomes
+        // a String the first time it's seen. For a big input, try WordCounter.countParallel(input).
+        WordCounter dictionary = new WordCounter();
 
         // Loop through all the words, counting them
         while (!input.atEnd())
         {
-            // Read one word, or number, or really everything up until the next space
-            String word = input.nextNonSpace();
+            // Skip one word, or number, or really everything up until the next space, noting where it was
+            int start = input.position();
+            input.scanNonSpace();
+            dictionary.add(input, start, input.position());
             // Then skip any whitespace between words
             input.scanSpaces();
-            
-            countWord(dictionary, word);
-        }
-
-        // Now loop through the collection of words and count, to find the most used one
-        return findHighestValue(dictionary);
-    }
-
-    /**
-     * A helper for the main solver methods.
-     * Given a word, which may or may not already be known to the hashmap, either
-     * add the first instance, or increment the count of instances of that word.
-     * @param dictionary a list of words, mapped to their instance counts
-     * @param word a word to be counted
-     */
-    void countWord(HashMap<String, Integer> dictionary, String word)
-    {
-        if (dictionary.containsKey(word))
-        {
-            // We've already seen this word at least once
-            dictionary.put(word, dictionary.get(word) + 1);  // increment the count
-        }
-        else
-        {
-            dictionary.put(word, 1);  // first time for this word
         }
-    }
 
-    /**
-     * A helper for the main solver methods.
-     * Find the hash map key which leads to the highest value.
-     * @param dictionary a list of words, mapped to their instance counts
-     * @return the word with the highest instance count
-     */
-    String findHighestValue(HashMap<String, Integer> dictionary)
-    {
-        // Now loop through the list of words, to find the most used one
-        int most = 0;
-        String answer = null;
-        for (String w : dictionary.keySet())
-        {
-            if (dictionary.get(w) > most)
-            {
-                answer = w;
-                most = dictionary.get(w);
-            }
-        }
-        return answer;
+        // Now find the most used word
+        return dictionary.argMax();
     }
 
     /**
@@ -96,7 +60,9 @@ public class Example extends ADay
      */
     public Object solvePart2(Reader input) 
     {
-        HashMap<String, Integer> dictionary = new HashMap<String, Integer>();
+        // A Counter keeps a plain long count per word: no boxed Integers, and one lookup per update.
+        // (See the AoC.collections package for its relatives: IntIntMap, LongLongMap, LongSet...)
+        Counter<String> dictionary = new Counter<String>();
 
         // Loop through all the words, counting them
         while (!input.atEnd())
@@ -121,15 +87,12 @@ public class Example extends ADay
             // to ask IF there were spaces, you could say: if (input.scanSpaces() > 0) ...
             input.scanSpaces();
             
-            // Count the word 1 or multiple times
-            while (multiple-- > 0)
-            {
-                countWord(dictionary, word);
-            }
+            // Count the word 1 or multiple times, in one go
+            dictionary.increment(word, multiple);
         }
 
-        // Now loop through the collection of words and count, to find the most used one
-        return findHighestValue(dictionary);
+        // Now find the most used word
+        return dictionary.argMax();
     }
 
 }
\ No newline at end of file
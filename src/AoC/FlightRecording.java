@@ -0,0 +1,59 @@
+package AoC;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * A Java Flight Recorder recording around a single run, dumped to a file
+ * that JDK Mission Control can open. Uses the JDK's "profile" settings
+ * (method sampling, allocation, GC, ...) plus the events in Events.
+ *
+ * Only use this if Events.available is true.
+ */
+class FlightRecording
+{
+    private final Recording _recording;
+
+    private FlightRecording(Recording recording)
+    {
+        _recording = recording;
+    }
+
+    static FlightRecording start(String name) throws IOException, ParseException
+    {
+        Recording recording = new Recording(Configuration.getConfiguration("profile"));
+        recording.setName(name);
+        recording.start();
+        return new FlightRecording(recording);
+    }
+
+    /**
+     * Stop recording, and write everything recorded to a file
+     */
+    File stop(File file) throws IOException
+    {
+        try
+        {
+            _recording.stop();
+            _recording.dump(file.toPath());
+            return file;
+        }
+        finally
+        {
+            _recording.close();
+        }
+    }
+
+    /**
+     * A new file name in the recordings folder, e.g. 2016-day5-20261018-123456.jfr
+     */
+    static File newFile(int year, int day)
+    {
+        String stamp = new java.text.SimpleDateFormat("yyyyMMdd-HHmmss").format(new java.util.Date());
+        return new File(Storage.dir("recordings"), year + "-day" + day + "-" + stamp + ".jfr");
+    }
+}
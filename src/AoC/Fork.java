@@ -0,0 +1,251 @@
+package AoC;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Solves one part in a fresh child JVM, for clean measurements:
+ * no JIT profile, heap or GC state left over from earlier solves.
+ *
+ * The child is "java [flags] -cp [our class path] AoC.Headless --child ...".
+ * It reads the input from its stdin, and writes the result as one line of
+ * JSON to its stdout. On stderr, it reports progress and warnings, which are
+ * passed on to the caller's Progress and Result.
+ *
+ * The child's heap is limited by the JVM flags in the options, and then by the
+ * day's own memory budget (see ADay.maxHeap()), which takes precedence.
+ */
+class Fork
+{
+    static final String PROGRESS = "PROGRESS\t";
+    static final String WARNING = "WARNING: ";
+
+    /**
+     * Solve one part in a child JVM, and wait for it.
+     * If this thread is interrupted (cancel or timeout), the child is killed.
+     */
+    static Result solve(ADay day, int part, Input input, Runner.Options options, Progress progress)
+    {
+        Result result = new Result(day.getDay(), part);
+        long start = System.nanoTime();
+        Process process = null;
+        try
+        {
+            process = new ProcessBuilder(command(day, part, options)).start();
+            Child child = new Child(process, input, progress);
+            int exit = process.waitFor();
+            child.join();
+
+            if (child.json == null)
+            {
+                result.status = Result.Status.FAILED;
+                result.answer = "EXCEPTION: child JVM exited with code " + exit;
+                result.error = new RuntimeException(result.answer + "\n" + child.errors);
+            }
+            else
+            {
+                read(Json.parse(child.json), result);
+                if (result.status == Result.Status.FAILED)
+                    result.error = new RuntimeException(result.answer + " (in child JVM)\n" + child.errors);
+            }
+            result.warnings.addAll(child.warnings);
+        }
+        catch (InterruptedException ex)
+        {
+            process.destroyForcibly();
+            result.status = Result.Status.CANCELLED;
+            result.answer = "Cancelled";
+            result.nanos = System.nanoTime() - start;
+        }
+        catch (IOException | RuntimeException ex)
+        {
+            if (process != null)
+                process.destroyForcibly();
+            result.status = Result.Status.FAILED;
+            result.answer = "EXCEPTION: unable to run child JVM: " + ex.getMessage();
+            result.error = ex;
+        }
+        return result;
+    }
+
+    /**
+     * The command line for the child JVM
+     */
+    static List<String> command(ADay day, int part, Runner.Options options)
+    {
+        List<String> command = new ArrayList<String>();
+        command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+        for (String flag : options.jvmArgs.trim().split("\\s+"))
+        {
+            if (!flag.isEmpty())
+                command.add(flag);
+        }
+        // The day's own budget comes last, so it wins over any -Xmx in the flags
+        if (day.maxHeap() != null)
+            command.add("-Xmx" + day.maxHeap());
+        command.add("-Djadvent.dir=" + Storage.root());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Headless.class.getName());
+        command.add("--year");
+        command.add(Integer.toString(options.year));
+        command.add("--runs");
+        command.add(Integer.toString(options.iterations));
+        command.add("--threshold");
+        command.add(Double.toString(options.regressionPercent));
+        if (!options.useCache)
+            command.add("--no-cache");
+        if (options.profileMillis > 0)
+        {
+            command.add("--profile");
+            command.add(Long.toString(options.profileMillis));
+        }
+        command.add("--child");
+        command.add(day.getClass().getName());
+        command.add(Integer.toString(part));
+        return command;
+    }
+
+    /**
+     * Fill in a result from the child's JSON (see Result.toJson())
+     */
+    static void read(Map<String, Object> json, Result result)
+    {
+        result.status = Result.Status.valueOf((String)json.get("status"));
+        result.answer = (String)json.get("answer");
+        result.nanos = number(json, "nanos", 0);
+        result.cached = Boolean.TRUE.equals(json.get("cached"));
+        result.parseNanos = number(json, "parseNanos", -1);
+        result.parseReused = Boolean.TRUE.equals(json.get("parseReused"));
+        if (json.containsKey("cpuNanos"))
+        {
+            result.metrics = new Metrics();
+            result.metrics.cpuNanos = number(json, "cpuNanos", -1);
+            result.metrics.allocatedBytes = number(json, "allocatedBytes", -1);
+            result.metrics.gcCount = number(json, "gcCount", 0);
+            result.metrics.gcMillis = number(json, "gcMillis", 0);
+            result.metrics.peakHeapBytes = number(json, "peakHeapBytes", 0);
+            result.metrics.peakOffHeapBytes = number(json, "peakOffHeapBytes", 0);
+        }
+        result.history = (String)json.get("history");
+        result.regression = Boolean.TRUE.equals(json.get("regression"));
+        if (json.get("profileFile") != null)
+            result.profileFile = new File((String)json.get("profileFile"));
+    }
+
+    private static long number(Map<String, Object> json, String key, long missing)
+    {
+        Object value = json.get(key);
+        return value instanceof Number ? ((Number)value).longValue() : missing;
+    }
+
+    /**
+     * A progress line from the child: PROGRESS count total best
+     */
+    static String progressLine(Progress progress)
+    {
+        Object best = progress.best();
+        return PROGRESS + progress.count() + "\t" + progress.total() + "\t"
+                + (best == null ? "" : best.toString().replace('\n', ' '));
+    }
+
+    private static void readProgress(String line, Progress progress)
+    {
+        String[] fields = line.split("\t", 4);
+        if (fields.length < 4)
+            return;
+        try
+        {
+            progress.set(Long.parseLong(fields[1]));
+            progress.total(Long.parseLong(fields[2]));
+            if (!fields[3].isEmpty())
+                progress.best(fields[3]);
+        }
+        catch (NumberFormatException ex)
+        {
+            // not a progress line after all
+        }
+    }
+
+    /**
+     * Feeds the child its input, and collects what it writes back, on helper threads
+     * (so that neither side can block the other with a full pipe)
+     */
+    private static class Child
+    {
+        volatile String json;
+        final List<String> warnings = new ArrayList<String>();
+        final StringBuilder errors = new StringBuilder();
+        private final Thread _stdout;
+        private final Thread _stderr;
+
+        Child(Process process, Input input, Progress progress)
+        {
+            start("AoC-fork-stdin", () -> {
+                try (OutputStream out = process.getOutputStream())
+                {
+                    out.write(input.bytes());
+                }
+                catch (IOException ex)
+                {
+                    // the child died early; its exit code will tell
+                }
+            });
+            _stdout = start("AoC-fork-stdout", () -> readLines(process.getInputStream(), line -> {
+                if (line.startsWith("{"))
+                    json = line;
+            }));
+            _stderr = start("AoC-fork-stderr", () -> readLines(process.getErrorStream(), line -> {
+                if (line.startsWith(PROGRESS))
+                    readProgress(line, progress);
+                else if (line.startsWith(WARNING))
+                    warnings.add(line.substring(WARNING.length()));
+                else
+                    errors.append(line).append('\n');
+            }));
+        }
+
+        /**
+         * Wait until the child's output has all been read
+         */
+        void join() throws InterruptedException
+        {
+            _stdout.join();
+            _stderr.join();
+        }
+
+        private static Thread start(String name, Runnable body)
+        {
+            Thread thread = new Thread(body, name);
+            thread.setDaemon(true);
+            thread.start();
+            return thread;
+        }
+
+        /**
+         * Handle each line as it arrives, until the child closes the stream
+         */
+        private static void readLines(InputStream stream, Consumer<String> handler)
+        {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8)))
+            {
+                String line;
+                while ((line = in.readLine()) != null)
+                    handler.accept(line);
+            }
+            catch (IOException ex)
+            {
+                // the stream closed when the child ended
+            }
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package AoC;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solve a day without the UI, e.g. from a script:
+ *   java -cp bin AoC.Headless [options] day input-file
+ * Or time every day against its saved input, and fail if any has slowed down:
+ *   java -cp bin AoC.Headless [options] --check-regressions
+ * Or check a day's samples (see ADay.addSample), and then its input if they pass:
+ *   java -cp bin AoC.Headless [options] --samples day [input-file]
+ *
+ * Use "-" as the input file to read the input from stdin.
+ * Each part's result is printed to stdout as one line of JSON
+ * (see Result.toJson()), as soon as that part finishes.
+ * Warnings go to stderr. The exit code is 1 if either part failed.
+ *
+ * Options:
+ *   --year Y      the puzzle year (default: JAdvent.year)
+ *   --timeout S   wall-clock limit for each part, in seconds
+ *   --no-cache    always solve, even if a cached answer is still valid
+ *   --jfr FILE    record the run with Java Flight Recorder, and save it to FILE
+ *   --profile MS  sample each solver's stack every MS milliseconds; hot methods go to stderr
+ *   --runs N      solve each part N times, and report the median time
+ *   --threshold P a slowdown of more than P percent (and significant) is a regression
+ *   --fork        solve each part in a fresh child JVM
+ *   --jvm FLAGS   flags for that child JVM, e.g. "-Xmx2g -XX:+UseSerialGC"
+ *   --samples     solve the day's samples too; a part whose samples fail is skipped for the input
+ *
+ * The child JVM itself is run with "--child class-name part", and reads its input from stdin.
+ */
+public class Headless
+{
+    public static void main(String[] args) throws Exception
+    {
+        Runner.Options options = new Runner.Options();
+        options.year = JAdvent.year;
+        options.useCache = true;
+        String jfr = null;
+        boolean checkRegressions = false;
+        boolean samples = false;
+        boolean child = false;
+        int arg = 0;
+        for (; arg < args.length && args[arg].startsWith("--"); arg++)
+        {
+            switch (args[arg])
+            {
+            case "--year":
+                options.year = Integer.parseInt(args[++arg]);
+                break;
+            case "--timeout":
+                options.timeoutMillis = Long.parseLong(args[++arg]) * 1000;
+                break;
+            case "--no-cache":
+                options.useCache = false;
+                break;
+            case "--profile":
+                options.profileMillis = Long.parseLong(args[++arg]);
+                break;
+            case "--jfr":
+                jfr = args[++arg];
+                break;
+            case "--runs":
+                options.iterations = Integer.parseInt(args[++arg]);
+                break;
+            case "--threshold":
+                options.regressionPercent = Double.parseDouble(args[++arg]);
+                break;
+            case "--check-regressions":
+                checkRegressions = true;
+                break;
+            case "--fork":
+                options.fork = true;
+                break;
+            case "--jvm":
+                options.jvmArgs = args[++arg];
+                break;
+            case "--samples":
+                samples = true;
+                break;
+            case "--child":
+                child = true;
+                break;
+            default:
+                usage("Unknown option " + args[arg]);
+            }
+        }
+        if (child)
+        {
+            if (args.length - arg != 2)
+                usage(null);
+            ADay day = (ADay)Class.forName(args[arg]).getConstructor().newInstance();
+            child(day, Integer.parseInt(args[arg + 1]), new Input(read("-")), options);
+            System.exit(0);
+        }
+        if (checkRegressions)
+        {
+            if (args.length != arg)
+                usage(null);
+            if (options.iterations < History.MIN_SAMPLES)
+                options.iterations = 5;
+            System.exit(checkRegressions(options) ? 0 : 1);
+        }
+        if (samples)
+        {
+            if (args.length - arg != 1 && args.length - arg != 2)
+                usage(null);
+            ADay day = findDay(Integer.parseInt(args[arg]));
+            System.exit(samples(day, args.length - arg == 2 ? input(args[arg + 1]) : null, options) ? 0 : 1);
+        }
+        if (args.length - arg != 2)
+            usage(null);
+
+        ADay day = findDay(Integer.parseInt(args[arg]));
+        Input input = input(args[arg + 1]);
+        if (jfr != null && !Events.available)
+            usage("Java Flight Recorder is not available in this JVM");
+        FlightRecording recording = jfr == null ? null : FlightRecording.start(day.toString());
+        boolean ok = run(day, input, options);
+        if (recording != null)
+            System.err.println("Saved flight recording to " + recording.stop(new File(jfr)));
+        System.exit(ok ? 0 : 1);
+    }
+
+    /**
+     * Solve both parts at once, printing each result as it arrives.
+     *
+     * @return true if neither part failed
+     */
+    static boolean run(ADay day, Input input, Runner.Options options) throws InterruptedException
+    {
+        CountDownLatch done = new CountDownLatch(2);
+        boolean[] ok = { true };
+        Runner.Task[] tasks = new Runner.Task[2];
+        for (int part = 1; part <= 2; part++)
+        {
+            tasks[part - 1] = Runner.start(day, part, input, options, result -> {
+                synchronized (ok)
+                {
+                    System.out.println(result.toJson());
+                    for (String warning : result.warnings)
+                        System.err.println("WARNING: " + warning);
+                    if (result.profile != null)
+                    {
+                        System.err.println("Part " + result.getPart() + " hot methods (self, total):");
+                        for (String line : result.profile.hotMethods(JAdvent.HOT_METHODS))
+                            System.err.println(line);
+                    }
+                    if (result.status != Result.Status.SOLVED && result.status != Result.Status.UNIMPLEMENTED)
+                        ok[0] = false;
+                }
+                done.countDown();
+            });
+        }
+
+        // Report any progress to stderr, once a second, until both parts are done
+        Progress.Meter[] meters = { new Progress.Meter(tasks[0].progress()), new Progress.Meter(tasks[1].progress()) };
+        while (!done.await(1, TimeUnit.SECONDS))
+        {
+            for (int i = 0; i < 2; i++)
+            {
+                String progress = meters[i].sample();
+                if (progress != null && !tasks[i].isFinished())
+                    System.err.println("Part " + (i + 1) + ": " + progress);
+            }
+        }
+        synchronized (ok)
+        {
+            return ok[0];
+        }
+    }
+
+    /**
+     * Solve the day's samples and (if given) its input, all at once, printing each
+     * result as it arrives, then a report of the samples.
+     *
+     * @return true if no sample failed, and neither part of the input failed
+     */
+    static boolean samples(ADay day, Input input, Runner.Options options) throws InterruptedException
+    {
+        List<Sample> samples = day.getSamples();
+        if (samples.isEmpty())
+            System.err.println(day + " has no samples (see ADay.addSample)");
+        CountDownLatch done = new CountDownLatch(2 * samples.size() + (input == null ? 0 : 2));
+        boolean[] ok = { true };
+        Batch batch = Batch.start(day, samples, input, options, outcome -> {
+            synchronized (ok)
+            {
+                Result result = outcome.result;
+                System.out.println(outcome.isSample() ? outcome.toJson() : result.toJson());
+                for (String warning : result.warnings)
+                    System.err.println("WARNING: " + warning);
+                if (!outcome.isSample() && result.status != Result.Status.SOLVED && result.status != Result.Status.UNIMPLEMENTED)
+                    ok[0] = false;
+            }
+            done.countDown();
+        });
+        done.await();
+        System.err.print(batch.report());
+        System.err.println(batch.summary());
+        synchronized (ok)
+        {
+            return ok[0] && !batch.failed();
+        }
+    }
+
+    /**
+     * Solve one part for a parent JVM (see Fork): progress and warnings go to stderr
+     * in a form the parent recognizes, and the result to stdout as JSON.
+     */
+    static void child(ADay day, int part, Input input, Runner.Options options) throws InterruptedException
+    {
+        CountDownLatch done = new CountDownLatch(1);
+        Runner.Task task = Runner.start(day, part, input, options, result -> {
+            for (String warning : result.warnings)
+                System.err.println(Fork.WARNING + warning);
+            if (result.error != null)
+                result.error.printStackTrace();
+            System.out.println(result.toJson());
+            done.countDown();
+        });
+        while (!done.await(250, TimeUnit.MILLISECONDS))
+        {
+            if (task.progress().isActive())
+                System.err.println(Fork.progressLine(task.progress()));
+        }
+    }
+
+    /**
+     * Time both parts of every day that has a saved input (one part at a time,
+     * so they don't disturb each other's timings), and compare each with its history.
+     *
+     * @return true if nothing regressed
+     */
+    static boolean checkRegressions(Runner.Options options)
+    {
+        boolean ok = true;
+        for (ADay day : ADay.allDays())
+        {
+            Input input = InputStore.load(options.year, day.getDay());
+            if (input == null)
+                continue;
+            for (int part = 1; part <= 2; part++)
+            {
+                Result result = Runner.solve(day, part, input, options);
+                if (result.status == Result.Status.UNIMPLEMENTED)
+                    continue;
+                System.out.println(result.history != null ? result.history : result.toString());
+                if (result.regression)
+                    ok = false;
+            }
+        }
+        return ok;
+    }
+
+    static ADay findDay(int number)
+    {
+        for (ADay day : ADay.allDays())
+        {
+            if (day.getDay() == number)
+                return day;
+        }
+        usage("No class found for day " + number);
+        return null;
+    }
+
+    /**
+     * Read an input file, or stdin for "-"
+     */
+    static Input input(String file) throws IOException
+    {
+        return file.equals("-") ? new Input(read("-")) : Input.read(new File(file));
+    }
+
+    static String read(String file) throws IOException
+    {
+        if (!file.equals("-"))
+            return new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        InputStream in = System.in;
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0)
+            bytes.write(buffer, 0, n);
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    static void usage(String error)
+    {
+        if (error != null)
+            System.err.println(error);
+        System.err.println("Usage: java AoC.Headless [--year Y] [--timeout S] [--no-cache] [--jfr FILE] [--profile MS] [--runs N] [--fork] [--jvm FLAGS] day input-file");
+        System.err.println("   or: java AoC.Headless [--year Y] [--runs N] [--threshold PERCENT] --check-regressions");
+        System.err.println("   or: java AoC.Headless [options] --samples day [input-file]");
+        System.exit(2);
+    }
+}
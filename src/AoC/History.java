@@ -0,0 +1,261 @@
+package AoC;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A record of every timed run, so we can tell whether today's solver is
+ * faster or slower than last week's.
+ *
+ * Each fresh solve appends one line to a tab-separated file per year, keyed by
+ * day, part, input hash and code hash, with the median time, allocation,
+ * answer and the individual timings. A new run is then compared with the best
+ * (lowest median) earlier run on the same input, whatever the code was then.
+ * A slowdown only counts as a regression if it is both bigger than a threshold
+ * and statistically significant (a one-sided Mann-Whitney U test on the timings),
+ * so ordinary timing noise is not flagged.
+ */
+class History
+{
+    /** Significance level for calling a slowdown real */
+    static final double ALPHA = 0.05;
+    /** Fewer timings than this (in either run) can't show significance */
+    static final int MIN_SAMPLES = 3;
+
+    /**
+     * One line of history: one part of one day, timed one or more times
+     */
+    static class Run
+    {
+        long time;
+        int year;
+        int day;
+        int part;
+        String input;
+        String code;
+        long median;
+        long allocated;
+        String answer;
+        long[] samples;
+
+        String toLine()
+        {
+            StringBuilder timings = new StringBuilder();
+            for (long sample : samples)
+                timings.append(timings.length() == 0 ? "" : ",").append(sample);
+            return time + "\t" + year + "\t" + day + "\t" + part + "\t" + input + "\t" + code + "\t"
+                    + median + "\t" + allocated + "\t" + escape(answer) + "\t" + timings;
+        }
+
+        static Run fromLine(String line)
+        {
+            String[] fields = line.split("\t", -1);
+            if (fields.length < 10)
+                return null;
+            try
+            {
+                Run run = new Run();
+                run.time = Long.parseLong(fields[0]);
+                run.year = Integer.parseInt(fields[1]);
+                run.day = Integer.parseInt(fields[2]);
+                run.part = Integer.parseInt(fields[3]);
+                run.input = fields[4];
+                run.code = fields[5];
+                run.median = Long.parseLong(fields[6]);
+                run.allocated = Long.parseLong(fields[7]);
+                run.answer = unescape(fields[8]);
+                String[] timings = fields[9].split(",");
+                run.samples = new long[timings.length];
+                for (int i = 0; i < timings.length; i++)
+                    run.samples[i] = Long.parseLong(timings[i]);
+                return run;
+            }
+            catch (NumberFormatException ex)
+            {
+                return null;  // skip a damaged line
+            }
+        }
+    }
+
+    /**
+     * How a new run compares with the best earlier one
+     */
+    static class Comparison
+    {
+        Run current;
+        /** The fastest earlier run with at least MIN_SAMPLES timings, or else the fastest of any */
+        Run best;
+        /** Relative change in median time: +0.25 means 25% slower */
+        double change;
+        /** Probability of a slowdown at least this big by chance; 1 if there weren't enough timings */
+        double p = 1;
+        /** True if slower by more than the threshold, and significantly so */
+        boolean regression;
+
+        public String toString()
+        {
+            String text = "Day " + current.day + " part " + current.part + ": " + Result.formatTime(current.median);
+            if (best == null)
+                return text + " (first run on this input)";
+            text += String.format(" vs best %s (%+.1f%%", Result.formatTime(best.median), 100 * change);
+            text += p < 1 ? String.format(", p=%.3f)", p) : ", too few runs to test)";
+            return regression ? text + " REGRESSION" : text;
+        }
+    }
+
+    private static File file(int year)
+    {
+        return new File(Storage.dir("history"), year + ".tsv");
+    }
+
+    /**
+     * Every recorded run for a year
+     */
+    static synchronized List<Run> load(int year)
+    {
+        List<Run> runs = new ArrayList<Run>();
+        File file = file(year);
+        if (!file.exists())
+            return runs;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)))
+        {
+            String line;
+            while ((line = in.readLine()) != null)
+            {
+                Run run = Run.fromLine(line);
+                if (run != null)
+                    runs.add(run);
+            }
+        }
+        catch (IOException ex)
+        {
+            System.err.println("Unable to read history: " + ex.getMessage());
+        }
+        return runs;
+    }
+
+    /**
+     * Compare a new run with the best earlier run on the same input (preferring runs with
+     * enough timings for a significance test), then add it to the history.
+     */
+    static synchronized Comparison record(Run run, double thresholdPercent)
+    {
+        Comparison comparison = new Comparison();
+        comparison.current = run;
+        // Compare against the best run with enough timings to test, if there is one:
+        // a lucky single-run best would otherwise make every later run untestable
+        Run bestTestable = null, bestAny = null;
+        for (Run earlier : load(run.year))
+        {
+            if (earlier.day != run.day || earlier.part != run.part || !earlier.input.equals(run.input))
+                continue;
+            if (bestAny == null || earlier.median < bestAny.median)
+                bestAny = earlier;
+            if (earlier.samples.length >= MIN_SAMPLES && (bestTestable == null || earlier.median < bestTestable.median))
+                bestTestable = earlier;
+        }
+        comparison.best = bestTestable != null ? bestTestable : bestAny;
+        if (comparison.best != null)
+        {
+            comparison.change = (double)run.median / comparison.best.median - 1;
+            if (run.samples.length >= MIN_SAMPLES && comparison.best.samples.length >= MIN_SAMPLES)
+                comparison.p = slowerProbability(run.samples, comparison.best.samples);
+            comparison.regression = comparison.p < ALPHA && comparison.change * 100 > thresholdPercent;
+        }
+
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file(run.year), true), StandardCharsets.UTF_8))
+        {
+            out.write(run.toLine() + "\n");
+        }
+        catch (IOException ex)
+        {
+            System.err.println("Unable to record history: " + ex.getMessage());
+        }
+        return comparison;
+    }
+
+    /**
+     * One-sided Mann-Whitney U test: how likely is it, if both sets of timings came
+     * from the same distribution, that the current ones would rank this high?
+     * Uses the normal approximation, with tied timings sharing their average rank.
+     */
+    static double slowerProbability(long[] current, long[] best)
+    {
+        int n1 = current.length;
+        int n2 = best.length;
+        long[][] all = new long[n1 + n2][];
+        for (int i = 0; i < n1; i++)
+            all[i] = new long[] { current[i], 1 };
+        for (int i = 0; i < n2; i++)
+            all[n1 + i] = new long[] { best[i], 0 };
+        Arrays.sort(all, (a, b) -> Long.compare(a[0], b[0]));
+
+        double rankSum = 0;
+        for (int i = 0; i < all.length; )
+        {
+            int j = i;
+            while (j < all.length && all[j][0] == all[i][0])
+                j++;
+            double rank = (i + 1 + j) / 2.0;  // average of ranks i+1 .. j
+            for (int k = i; k < j; k++)
+            {
+                if (all[k][1] == 1)
+                    rankSum += rank;
+            }
+            i = j;
+        }
+
+        double u = rankSum - n1 * (n1 + 1) / 2.0;
+        double mean = n1 * n2 / 2.0;
+        double sd = Math.sqrt(n1 * n2 * (n1 + n2 + 1) / 12.0);
+        double z = (u - mean) / sd;
+        return 1 - normal(z);
+    }
+
+    /**
+     * The standard normal cumulative distribution (Abramowitz and Stegun 26.2.17)
+     */
+    private static double normal(double z)
+    {
+        double t = 1 / (1 + 0.2316419 * Math.abs(z));
+        double poly = t * (0.319381530 + t * (-0.356563782 + t * (1.781477937 + t * (-1.821255978 + t * 1.330274429))));
+        double tail = Math.exp(-z * z / 2) / Math.sqrt(2 * Math.PI) * poly;
+        return z >= 0 ? 1 - tail : tail;
+    }
+
+    private static String escape(String s)
+    {
+        return s.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String s)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < s.length(); i++)
+        {
+            char ch = s.charAt(i);
+            if (ch == '\\' && i + 1 < s.length())
+            {
+                ch = s.charAt(++i);
+                if (ch == 't')
+                    ch = '\t';
+                else if (ch == 'n')
+                    ch = '\n';
+                else if (ch == 'r')
+                    ch = '\r';
+            }
+            builder.append(ch);
+        }
+        return builder.toString();
+    }
+}
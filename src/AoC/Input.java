@@ -0,0 +1,216 @@
+package AoC;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * One puzzle input, shared by everything that solves it.
+ * Each solver still gets its own Reader, but the characters (and their hash)
+ * are only held once, and all the Readers share them.
+ */
+public class Input
+{
+    private final char[] _chars;
+    private String _hash;
+
+    public Input(String text)
+    {
+        _chars = text.toCharArray();
+    }
+
+    private Input(char[] chars)
+    {
+        _chars = chars;
+    }
+
+    /**
+     * Files at least this big are memory-mapped; smaller ones are cheaper to just read.
+     * (A mapping also stays open until it is garbage collected, which on Windows
+     * stops the file from being replaced, so it's best kept for big inputs.)
+     */
+    static final int MAP_THRESHOLD = 1 << 20;
+
+    /**
+     * Read an input file (UTF-8). A big file is memory-mapped, and either way the bytes
+     * are decoded straight into the characters the Readers will share.
+     */
+    public static Input read(File file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException(file + " is too large to read (" + size + " bytes)");
+            ByteBuffer bytes;
+            if (size >= MAP_THRESHOLD)
+            {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            else
+            {
+                bytes = ByteBuffer.allocate((int)size);
+                while (bytes.hasRemaining())
+                {
+                    if (channel.read(bytes) < 0)
+                        break;
+                }
+                bytes.flip();
+            }
+            CharBuffer chars = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                    .decode(bytes);
+            char[] array = chars.array();
+            if (chars.arrayOffset() != 0 || chars.remaining() != array.length)
+            {
+                array = new char[chars.remaining()];
+                chars.get(array);
+            }
+            Input input = new Input(array);
+            // Hash the bytes we already have, rather than encoding the text again later
+            bytes.rewind();
+            input._hash = sha256(bytes);
+            return input;
+        }
+    }
+
+    /**
+     * The input as a String. This is a copy, so prefer reader().
+     */
+    public String text() { return new String(_chars); }
+
+    public int length() { return _chars.length; }
+
+    /**
+     * The input encoded as UTF-8, as it is saved and passed to other processes
+     */
+    public byte[] bytes()
+    {
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(CharBuffer.wrap(_chars));
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * A short description of an input too big to show in full:
+     * its size and line count, and its first and last few lines
+     */
+    String preview(int lines, int width)
+    {
+        int count = 0;
+        for (char ch : _chars)
+        {
+            if (ch == '\n')
+                count++;
+        }
+        int end = _chars.length;
+        if (end > 0 && _chars[end - 1] != '\n')
+            count++;
+        else if (end > 0)
+            end--;  // the final newline doesn't start another line
+
+        StringBuilder builder = new StringBuilder(String.format("%,d characters, %,d lines%n%n", _chars.length, count));
+        int pos = 0;
+        for (int i = 0; i < lines && pos < end; i++)
+            pos = appendLine(builder, pos, end, width);
+
+        // Find the start of the last few lines, without going back over the first few
+        int tail = end;
+        for (int i = 0; i < lines && tail > pos; i++)
+        {
+            if (i > 0)
+                tail--;  // the newline before the line just found
+            while (tail > pos && _chars[tail - 1] != '\n')
+                tail--;
+        }
+        if (tail > pos)
+            builder.append(String.format("%n... %,d characters ...%n%n", tail - pos));
+        while (tail < end)
+            tail = appendLine(builder, tail, end, width);
+        return builder.toString();
+    }
+
+    /**
+     * Append the line starting at pos (cut short if it's too wide)
+     *
+     * @return the start of the next line
+     */
+    private int appendLine(StringBuilder builder, int pos, int end, int width)
+    {
+        int eol = pos;
+        while (eol < end && _chars[eol] != '\n')
+            eol++;
+        int stop = eol > pos && _chars[eol - 1] == '\r' ? eol - 1 : eol;
+        builder.append(_chars, pos, Math.min(stop - pos, width));
+        if (stop - pos > width)
+            builder.append("...");
+        builder.append('\n');
+        return eol + 1;
+    }
+
+    /**
+     * A fresh Reader, positioned at the start of the input
+     */
+    public Reader reader()
+    {
+        return new Reader(_chars);
+    }
+
+    /**
+     * A hash of the input text, so that results derived from this input can be
+     * cached, and recognized later. Computed on first use.
+     */
+    public synchronized String hash()
+    {
+        if (_hash == null)
+            _hash = sha256(bytes());
+        return _hash;
+    }
+
+    /**
+     * The SHA-256 hash of some bytes, as a hex string.
+     */
+    static String sha256(byte[] bytes)
+    {
+        try
+        {
+            return hex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        }
+        catch (NoSuchAlgorithmException ex)
+        {
+            // every Java platform is required to support SHA-256
+            throw new RuntimeException("SHA-256 is unsupported", ex);
+        }
+    }
+
+    static String sha256(ByteBuffer bytes)
+    {
+        try
+        {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(bytes);
+            return hex(digest.digest());
+        }
+        catch (NoSuchAlgorithmException ex)
+        {
+            throw new RuntimeException("SHA-256 is unsupported", ex);
+        }
+    }
+
+    static String hex(byte[] bytes)
+    {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes)
+            builder.append(String.format("%02x", b));
+        return builder.toString();
+    }
+}
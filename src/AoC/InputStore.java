@@ -0,0 +1,138 @@
+package AoC;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Keeps the latest input for each day (under .jadvent/inputs), so it can be
+ * restored the next time that day is selected.
+ *
+ * Saving happens on a background thread, and is skipped if the input hasn't
+ * changed since it was last saved or loaded. Each file is written in full
+ * before it replaces the old one, so a crash never leaves half an input behind.
+ * Inputs are restored exactly as saved, line endings and all.
+ */
+public class InputStore
+{
+    /**
+     * One writer, so saves of the same day happen in order
+     */
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "AoC-input-store");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The hash of what each file holds, as far as we know
+     */
+    private static final Map<File, String> saved = new ConcurrentHashMap<File, String>();
+
+    static File file(int year, int day)
+    {
+        return new File(Storage.dir("inputs"), year + "-day" + day + ".txt");
+    }
+
+    /**
+     * Where older versions kept each input. The separator was hard-coded for Windows,
+     * so elsewhere this is an oddly named file beside the temp folder.
+     */
+    private static File legacyFile(int year, int day)
+    {
+        return new File(System.getProperty("java.io.tmpdir") + "\\AdventOfCode-" + year + "-day" + day + ".txt");
+    }
+
+    /**
+     * The input last saved for a day, or null if there isn't one
+     */
+    public static Input load(int year, int day)
+    {
+        File file = file(year, day);
+        if (!file.isFile())
+        {
+            // Bring an input saved by an older version across
+            File legacy = legacyFile(year, day);
+            if (!legacy.isFile())
+                return null;
+            file = legacy;
+        }
+        try
+        {
+            Input input = Input.read(file);
+            if (file.equals(file(year, day)))
+                saved.put(file, input.hash());
+            else
+                save(year, day, input);
+            return input;
+        }
+        catch (IOException ex)
+        {
+            System.out.println("Unable to load input: " + ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Save a day's input in the background, unless it is already saved
+     *
+     * @return the pending save, for a caller that needs to wait for it
+     */
+    public static Future<?> save(int year, int day, Input input)
+    {
+        return writer.submit(() -> {
+            File file = file(year, day);
+            String hash = input.hash();
+            if (hash.equals(saved.get(file)) && file.isFile())
+                return;
+            try
+            {
+                write(file, input.bytes());
+                saved.put(file, hash);
+            }
+            catch (IOException ex)
+            {
+                System.out.println("Unable to save input: " + ex.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Write to a temp file, then swap it in, so a reader never sees half a file
+     */
+    private static void write(File file, byte[] bytes) throws IOException
+    {
+        File temp = File.createTempFile("input", ".tmp", file.getParentFile());
+        try
+        {
+            try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE))
+            {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+            }
+            try
+            {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (AtomicMoveNotSupportedException ex)
+            {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally
+        {
+            temp.delete();  // only still there if the move failed
+        }
+    }
+}
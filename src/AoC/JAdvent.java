@@ -1,12 +1,20 @@
 package AoC;
 
 import java.awt.*;
-import java.io.BufferedReader;
+import java.awt.datatransfer.Clipboard;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.awt.event.InputEvent;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+
+import AoC.Batch.Outcome;
 
 /**
  * This class is meant to facilitate solving the Advent of Code puzzles
@@ -19,14 +27,69 @@ public class JAdvent
 {
     /** TODO: what year's puzzles are you solving? */
     static int year = 2016;
+    static final Color WARNING = new Color(192, 96, 0);
     static JFrame _frame;
     static JComboBox<ADay> _combo;
+    /** Loads the days, and reloads them when they are recompiled */
+    static DayLoader _loader;
     static JButton _execButton;
+    static JButton _cancelButton;
+    static JCheckBox _profile;
+    static JSpinner _profileMillis;
+    static JCheckBox _record;
+    static JLabel _inputLabel;
+    static JButton _fileButton;
     static JTextArea _input;
+    /** The stored input shown in the text area, until it is edited */
+    static Input _restored;
+    /** In large-input mode, the input (which the text area only previews) */
+    static Input _large;
+
+    /** Inputs longer than this (in characters) are previewed, rather than put in the text area */
+    static final int LARGE_INPUT = 256 * 1024;
+    static final int PREVIEW_LINES = 20;
+    static final int PREVIEW_WIDTH = 200;
     static JTextField _output1;
     static JTextField _output2;
     static JLabel _time1;
     static JLabel _time2;
+    static JSpinner _timeout;
+    static JSpinner _runs;
+    static JLabel _parseTime;
+    static JCheckBox _useCache;
+    static JLabel _status;
+    static JCheckBox _fork;
+    static JTextField _jvmArgs;
+    static JCheckBox _samples;
+    static JToggleButton _metricsButton;
+    static JScrollPane _metricsPanel;
+    static JTextArea _metrics;
+    /** The latest result of each part, for the metrics panel */
+    static Result[] _results = new Result[2];
+
+    /** How many hot methods to list for a profiled part */
+    static final int HOT_METHODS = 8;
+
+    /** Wall-clock limit for each part, in seconds. 0 means no limit. */
+    static int timeoutSeconds = 0;
+
+    /** The parts currently being solved in the background */
+    static Runner.Task _task1;
+    static Runner.Task _task2;
+    /** Everything being solved: the real input's two parts, and any samples */
+    static Batch _batch;
+    /** How many of its outcomes have been shown so far */
+    static int _shown;
+    /** How the samples did, for the metrics panel */
+    static String _samplesReport;
+    /** A flight recording around the current run, if one was asked for */
+    static FlightRecording _recording;
+    static File _recordingFile;
+    /** Turn each running part's progress into rates */
+    static Progress.Meter _meter1;
+    static Progress.Meter _meter2;
+    /** Refreshes the elapsed time of running parts */
+    static Timer _ticker;
 
     public static void main(String[] args) throws Exception 
     {
@@ -41,14 +104,15 @@ public class JAdvent
     private static void CreateFrame()
     {
         _frame = new JFrame("Advent of Code " + year);
-        _frame.setBounds(100, 100, 630, 730);
+        _frame.setBounds(100, 100, 630, 790);
         
         // Problem selector
         JLabel label = new JLabel("Problems: ");
         label.setBounds(10, 10, 80, 20);
         _frame.add(label);
 
-        _combo = new JComboBox<ADay>(ADay.allDays());
+        _loader = new DayLoader();
+        _combo = new JComboBox<ADay>(_loader.days());
         _combo.setBounds(90, 10, 400, 20);
         _combo.setSelectedIndex(_combo.getItemCount() - 1);  // select the last (newest) problem by default
         _combo.addActionListener(e -> restoreInput());
@@ -56,19 +120,63 @@ public class JAdvent
 
         // Execute button (oversized)
         _execButton = new JButton("Execute!");
-        _execButton.setBounds(500, 10, 100, 40);
+        _execButton.setBounds(500, 10, 100, 26);
         _execButton.addActionListener(e -> execute() );
         _frame.add(_execButton);
 
+        // Cancel button, only enabled while solving
+        _cancelButton = new JButton("Cancel");
+        _cancelButton.setBounds(500, 38, 100, 22);
+        _cancelButton.setEnabled(false);
+        _cancelButton.addActionListener(e -> cancel() );
+        _frame.add(_cancelButton);
+
         // Raw input
-        label = new JLabel("Input data:");
-        label.setBounds(10, 40, 200, 20);
-        _frame.add(label);
+        _inputLabel = new JLabel("Input data:");
+        _inputLabel.setBounds(10, 40, 85, 20);
+        _frame.add(_inputLabel);
+
+        // Open a file as the input, or (for a large input) switch back to editing it as text
+        _fileButton = new JButton("Open file...");
+        _fileButton.setBounds(95, 40, 100, 20);
+        _fileButton.setMargin(new Insets(0, 0, 0, 0));
+        _fileButton.addActionListener(e -> {
+            if (_large != null)
+                showText(_large);
+            else
+                openFile();
+        });
+        _frame.add(_fileButton);
+
+        // Profile mode: sample the solver threads' stacks every few milliseconds
+        _profile = new JCheckBox("Profile");
+        _profile.setBounds(200, 40, 75, 20);
+        _profile.setToolTipText("Sample each solver's stack to find its hot methods");
+        _frame.add(_profile);
+
+        _profileMillis = new JSpinner(new SpinnerNumberModel(10, 1, 1000, 1));
+        _profileMillis.setBounds(280, 40, 55, 20);
+        _profileMillis.setToolTipText("Sampling interval, in milliseconds");
+        _frame.add(_profileMillis);
+
+        // Java Flight Recorder recording around each Execute
+        _record = new JCheckBox("Record JFR");
+        _record.setBounds(390, 40, 105, 20);
+        _record.setToolTipText("Record each Execute with Java Flight Recorder, to open in JDK Mission Control");
+        _record.setEnabled(Events.available);
+        _frame.add(_record);
 
         _input = new JTextArea();
         _input.setLineWrap(true);
         _input.setAutoscrolls(true);
         _input.setFont(new Font("Courier New", Font.PLAIN, 14));
+        _input.getDocument().addDocumentListener(new DocumentListener()
+        {
+            public void insertUpdate(DocumentEvent e) { _restored = null; }
+            public void removeUpdate(DocumentEvent e) { _restored = null; }
+            public void changedUpdate(DocumentEvent e) { }
+        });
+        _input.setTransferHandler(new LargeInputHandler(_input.getTransferHandler()));
 
         JScrollPane scroll = new JScrollPane(_input);  // needed for vertical scrollbar on input
         scroll.setBounds(10, 65, 590, 520);
@@ -99,6 +207,86 @@ public class JAdvent
         _time2.setBounds(510, 630, 90, 20);
         _frame.add(_time2);
 
+        // Time limit for each part
+        label = new JLabel("Timeout (sec):");
+        label.setBounds(10, 660, 100, 20);
+        _frame.add(label);
+
+        _timeout = new JSpinner(new SpinnerNumberModel(timeoutSeconds, 0, 24 * 60 * 60, 10));
+        _timeout.setBounds(110, 660, 60, 20);
+        _timeout.setToolTipText("Maximum wall-clock time for each part. 0 means no limit.");
+        _frame.add(_timeout);
+
+        // Timing runs: solve each part repeatedly, and report the median
+        label = new JLabel("Runs:");
+        label.setBounds(180, 660, 40, 20);
+        _frame.add(label);
+
+        _runs = new JSpinner(new SpinnerNumberModel(1, 1, 1000, 1));
+        _runs.setBounds(220, 660, 55, 20);
+        _runs.setToolTipText("Solve each part this many times, and report the median time");
+        _frame.add(_runs);
+
+        // Time spent parsing (only for days that extend ParsedDay)
+        label = new JLabel("Parse:");
+        label.setBounds(290, 660, 45, 20);
+        _frame.add(label);
+
+        _parseTime = new JLabel();
+        _parseTime.setBounds(335, 660, 165, 20);
+        _frame.add(_parseTime);
+
+        // Answer from the cache when neither input nor code has changed
+        _useCache = new JCheckBox("Use cache", true);
+        _useCache.setBounds(505, 660, 95, 20);
+        _useCache.setToolTipText("Reuse saved answers when neither the input nor the day's code has changed");
+        _frame.add(_useCache);
+
+        // Warnings about the last run
+        _status = new JLabel();
+        _status.setBounds(10, 690, 480, 20);
+        _status.setForeground(WARNING);
+        _frame.add(_status);
+
+        // Resource usage of each part, hidden until asked for
+        _metricsButton = new JToggleButton("Metrics \u25B8");
+        _metricsButton.setBounds(500, 690, 100, 20);
+        _metricsButton.addActionListener(e -> toggleMetrics());
+        _frame.add(_metricsButton);
+
+        // Isolated runs: each part in a fresh JVM, with its own flags
+        _fork = new JCheckBox("Fork JVM");
+        _fork.setBounds(10, 720, 100, 20);
+        _fork.setToolTipText("Solve each part in a fresh child JVM, so earlier solves can't affect its timing");
+        _frame.add(_fork);
+
+        label = new JLabel("JVM flags:");
+        label.setBounds(120, 720, 70, 20);
+        _frame.add(label);
+
+        _jvmArgs = new JTextField("-Xmx2g");
+        _jvmArgs.setBounds(190, 720, 300, 20);
+        _jvmArgs.setToolTipText("Flags for the child JVM, e.g. -Xmx2g -XX:+UseParallelGC");
+        _frame.add(_jvmArgs);
+
+        // Check the day's samples along with the real input
+        _samples = new JCheckBox("Samples");
+        _samples.setBounds(500, 720, 100, 20);
+        _samples.setSelected(true);
+        _samples.setToolTipText("Also solve the day's samples (see ADay.addSample), and skip any part whose samples fail");
+        _frame.add(_samples);
+
+        _metrics = new JTextArea();
+        _metrics.setEditable(false);
+        _metrics.setFont(new Font("Courier New", Font.PLAIN, 12));
+        _metricsPanel = new JScrollPane(_metrics);
+        _metricsPanel.setBounds(10, 750, 590, 180);
+        _metricsPanel.setVisible(false);
+        _frame.add(_metricsPanel);
+
+        // While solving, show the elapsed time of each running part
+        _ticker = new Timer(100, e -> tick());
+
         // Show the frame
         _frame.setLayout(null);
         _frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -109,133 +297,485 @@ public class JAdvent
     }
 
     /**
-     * Save each day's input in a temp file, where it can be restored each run
+     * At each boot, and again if the combo is changed to another day,
+     * restore the input text to its previous value (for that day)
      */
-    private static File tempFile(int day)
+    private static void restoreInput()
     {
-        String prop = "java.io.tmpdir";
-        String tempDir = System.getProperty(prop);
-        String path = tempDir + "\\AdventOfCode-" + year + "-day" + day + ".txt";
-        return new File(path);
+        ADay day = (ADay)_combo.getSelectedItem();
+        Input saved = InputStore.load(year, day == null ? 0 : day.getDay());
+        if (saved != null)
+            show(saved);
     }
 
     /**
-     * At each boot, and again if the combo is changed to another day,
-     * restore the input text to its previous value (for that day)
+     * Show an input in the text area, or just a preview of it if it's large
      */
-    private static void restoreInput()
+    private static void show(Input input)
+    {
+        if (input.length() > LARGE_INPUT)
+            showLarge(input);
+        else
+            showText(input);
+    }
+
+    private static void showText(Input input)
+    {
+        _large = null;
+        _inputLabel.setText("Input data:");
+        _fileButton.setText("Open file...");
+        _fileButton.setToolTipText("Use the contents of a file as the input");
+        _input.setEditable(true);
+        _input.setLineWrap(true);
+        _input.setText(input.text());
+        _input.setCaretPosition(0);
+        _restored = input;  // after setText, which clears it
+    }
+
+    /**
+     * Large-input mode: the text area shows a read-only preview, so it never has to
+     * lay out (or copy) the whole input. Solvers read the input itself.
+     */
+    private static void showLarge(Input input)
+    {
+        _inputLabel.setText("Large input:");
+        _fileButton.setText("Edit as text");
+        _fileButton.setToolTipText("Put the whole input in the text area (slow for very large inputs)");
+        _input.setEditable(false);
+        _input.setLineWrap(false);
+        _input.setText(input.preview(PREVIEW_LINES, PREVIEW_WIDTH));
+        _input.setCaretPosition(0);
+        _large = input;
+        _restored = null;
+    }
+
+    /**
+     * Pick a file, and use it as the input
+     */
+    private static void openFile()
+    {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(_frame) == JFileChooser.APPROVE_OPTION)
+            openFile(chooser.getSelectedFile());
+    }
+
+    private static void openFile(File file)
     {
         try
         {
-            ADay day = (ADay)_combo.getSelectedItem();
-            File file = tempFile(day == null ? 0 : day.getDay());
-            if (file.exists() && file.canRead())
-            {
-                FileReader fr = new FileReader(file);
-                BufferedReader buf = new BufferedReader(fr);
-                String line;
-                StringBuilder builder = new StringBuilder();
-                while ((line = buf.readLine()) != null)
-                {
-                    if (builder.length() > 0)
-                        builder.append("\r\n");
-                    builder.append(line);
-                }
-                fr.close();
-                _input.setText(builder.toString());
-            }
+            show(Input.read(file));
         }
-        catch (Exception ex)
+        catch (IOException ex)
         {
-            System.out.println(ex.getMessage());
+            JOptionPane.showMessageDialog(_frame, "Unable to read " + file + ": " + ex.getMessage());
         }
     }
 
     /**
-     * Save input for the next run (of the same day)
+     * Pastes (and drops) a large text into large-input mode, rather than into the
+     * text area; a dropped file becomes the input. Anything else is left to the
+     * text area's own handler.
      */
-    private static void saveInput(int day, String input)
+    private static class LargeInputHandler extends TransferHandler
     {
-        try
+        private static final long serialVersionUID = 1L;
+        private final TransferHandler _text;
+
+        LargeInputHandler(TransferHandler text)
         {
-            File file = tempFile(day);
-            if (file.exists())
-                file.delete();
-            if (file.createNewFile())
+            _text = text;
+        }
+
+        @Override
+        public boolean canImport(TransferSupport support)
+        {
+            if (support.isDataFlavorSupported(DataFlavor.javaFileListFlavor))
+                return true;
+            if (_large != null)
+                return support.isDataFlavorSupported(DataFlavor.stringFlavor);
+            return _text.canImport(support);
+        }
+
+        @Override
+        public boolean importData(TransferSupport support)
+        {
+            try
             {
-                FileWriter fw = new FileWriter(file);
-                fw.append(input);
-                fw.close();
+                if (support.isDataFlavorSupported(DataFlavor.javaFileListFlavor))
+                {
+                    List<?> files = (List<?>)support.getTransferable().getTransferData(DataFlavor.javaFileListFlavor);
+                    if (files.isEmpty())
+                        return false;
+                    openFile((File)files.get(0));
+                    return true;
+                }
+                if (support.isDataFlavorSupported(DataFlavor.stringFlavor))
+                {
+                    // While large, any paste replaces the whole input
+                    String text = (String)support.getTransferable().getTransferData(DataFlavor.stringFlavor);
+                    if (_large != null || text.length() > LARGE_INPUT)
+                    {
+                        show(new Input(text));
+                        return true;
+                    }
+                }
             }
+            catch (UnsupportedFlavorException | IOException ex)
+            {
+                return false;
+            }
+            return _text.importData(support);
         }
-        catch (Exception ex)
+
+        @Override
+        public int getSourceActions(JComponent c)
+        {
+            return _text.getSourceActions(c);
+        }
+
+        @Override
+        public void exportAsDrag(JComponent comp, InputEvent e, int action)
+        {
+            _text.exportAsDrag(comp, e, action);
+        }
+
+        @Override
+        public void exportToClipboard(JComponent comp, Clipboard clip, int action)
         {
-            System.out.println(ex.getMessage());
+            _text.exportToClipboard(comp, clip, action);
         }
     }
 
     /**
      * Execute the selected problem, with the provided input.
-     * Write the output to the Output box at the bottom of the app.
+     * Both parts run at once, on background threads; each one's output is
+     * written to its Output box at the bottom of the app as soon as it finishes.
      */
     private static void execute()
     {
         ADay day = (ADay)_combo.getSelectedItem();
-        String data = _input.getText();
-        saveInput(day == null ? 0 : day.getDay(), data);
+        // A large input, or unedited since it was restored? Then solve that, rather than copying the text area
+        Input input = _large != null ? _large : _restored != null ? _restored : new Input(_input.getText());
+        if (input.length() > LARGE_INPUT && _large == null)
+            showLarge(input);
+        InputStore.save(year, day == null ? 0 : day.getDay(), input);
+        String reloaded = reloadDays();
+        day = (ADay)_combo.getSelectedItem();
+        if (day == null)
+            return;
 
         _time1.setText("");
         _time2.setText("");
+        _output1.setText("");
+        _output2.setText("");
         _output1.setBackground(Color.gray);
         _output2.setBackground(Color.gray);
+        _parseTime.setText("");
+        _results = new Result[2];
+        _samplesReport = null;
+        _metrics.setText("");
+        _status.setText("");
+        _status.setToolTipText(null);
+        _status.setForeground(WARNING);
+        if (reloaded != null)
+        {
+            _status.setForeground(Color.darkGray);
+            _status.setText(reloaded);
+        }
 
-        // Try to solve the first half of this problem
+        Runner.Options options = new Runner.Options();
+        options.year = year;
+        options.timeoutMillis = ((Number)_timeout.getValue()).longValue() * 1000;
+        options.useCache = _useCache.isSelected();
+        options.iterations = ((Number)_runs.getValue()).intValue();
+        options.fork = _fork.isSelected();
+        options.jvmArgs = _jvmArgs.getText();
+        if (_profile.isSelected())
+            options.profileMillis = ((Number)_profileMillis.getValue()).longValue();
+        _execButton.setEnabled(false);
+        _cancelButton.setEnabled(true);
+        _ticker.start();
+
+        if (_record.isSelected())
+            startRecording(day);
+
+        List<Sample> samples = _samples.isSelected() ? day.getSamples() : Collections.<Sample>emptyList();
+        _shown = 0;
+        _batch = Batch.start(day, samples, input, options, outcome -> SwingUtilities.invokeLater(() -> showOutcome(outcome)));
+        _task1 = _batch.task(1);
+        _task2 = _batch.task(2);
+    }
+
+    /**
+     * Show one part of one input as soon as it's done: the real input in the output boxes,
+     * and samples in the metrics panel
+     */
+    private static void showOutcome(Outcome outcome)
+    {
+        Batch batch = _batch;
+        if (outcome.isSample())
+        {
+            _samplesReport = batch.report();
+            showMetrics();
+        }
+        else if (outcome.result.getPart() == 1)
+        {
+            showResult(_output1, _time1, outcome.result);
+        }
+        else
+        {
+            showResult(_output2, _time2, outcome.result);
+        }
+        if (++_shown == batch.size())
+        {
+            if (batch.failed())
+            {
+                warn(batch.summary());
+            }
+            else if (batch.hasSamples() && _status.getText().isEmpty())
+            {
+                _status.setForeground(Color.darkGray);
+                _status.setText(batch.summary());
+            }
+            finished();
+        }
+    }
+
+    /**
+     * Swap in any recompiled days, keeping the same day selected
+     *
+     * @return a note for the status line, or null if nothing was reloaded
+     */
+    private static String reloadDays()
+    {
+        ADay[] days = _loader.reloadIfChanged();
+        if (days == null)
+            return null;
+        ADay selected = (ADay)_combo.getSelectedItem();
+        DefaultComboBoxModel<ADay> model = new DefaultComboBoxModel<ADay>(days);
+        for (ADay day : days)
+        {
+            if (selected != null && day.getDay() == selected.getDay())
+                model.setSelectedItem(day);
+        }
+        _combo.setModel(model);  // doesn't fire an action, so the input text is left alone
+        return "Reloaded the recompiled days";
+    }
+
+    /**
+     * Stop whatever is running. The solvers are interrupted, and should stop soon.
+     * Either way, each cancelled part reports back straight away.
+     */
+    private static void cancel()
+    {
+        if (_batch != null)
+            _batch.cancel();
+    }
+
+    /**
+     * Restore the buttons once nothing is running
+     */
+    private static void finished()
+    {
+        _ticker.stop();
+        stopRecording();
+        _task1 = null;
+        _task2 = null;
+        _execButton.setEnabled(true);
+        _cancelButton.setEnabled(false);
+    }
+
+    /**
+     * Show the elapsed time, and any reported progress, of each part that is still running
+     */
+    private static void tick()
+    {
+        _meter1 = tick(_task1, _meter1, _output1, _time1);
+        _meter2 = tick(_task2, _meter2, _output2, _time2);
+    }
+
+    private static Progress.Meter tick(Runner.Task task, Progress.Meter meter, JTextField output, JLabel time)
+    {
+        if (task == null || task.isFinished())
+            return null;
+        time.setText(Result.formatTime(task.elapsedNanos()));
+        if (meter == null)
+            meter = new Progress.Meter(task.progress());
+        String progress = meter.sample();
+        if (progress != null)
+        {
+            output.setForeground(Color.darkGray);
+            output.setText(progress);
+        }
+        return meter;
+    }
+
+    /**
+     * Write one part's result to its output box (on the Swing thread)
+     */
+    private static void showResult(JTextField output, JLabel time, Result result)
+    {
+        _results[result.getPart() - 1] = result;
+        showMetrics();
+
+        output.setText(result.answer);
+        output.setBackground(Color.white);
+        time.setText(result.timeText());
+        time.setToolTipText(null);
+        if (result.cached)
+        {
+            time.setText("cached");
+            time.setToolTipText("Answer cached from an earlier run, which took " + result.timeText());
+        }
+        // Whichever part did the parse reports how long it took; the other part just reused it
+        String parse = result.parseText();
+        if (parse != null && (result.parseNanos >= 0 || _parseTime.getText().isEmpty()))
+            _parseTime.setText(parse);
+        for (String warning : result.warnings)
+            warn(warning);
+        switch (result.status)
+        {
+        case SOLVED:
+            output.setForeground(Color.black);
+            break;
+        case UNIMPLEMENTED:
+            output.setForeground(Color.gray);
+            time.setText("");
+            break;
+        case CANCELLED:
+            output.setForeground(Color.gray);
+            break;
+        case TIMED_OUT:
+            output.setForeground(Color.red);
+            break;
+        case FAILED:
+            System.out.println("EXCEPTION: " + result.error.getMessage());
+            result.error.printStackTrace(new java.io.PrintStream(System.out));
+            output.setForeground(Color.red);
+            time.setText("");
+            break;
+        }
+    }
+
+    /**
+     * Show a warning in the status line (and the console, where there is room for all of it)
+     */
+    private static void warn(String warning)
+    {
+        System.out.println("WARNING: " + warning);
+        String tip = _status.getToolTipText();
+        _status.setToolTipText(tip == null ? warning : tip + "; " + warning);
+        _status.setText(_status.getToolTipText());
+    }
+
+    /**
+     * Expand (or collapse) the metrics panel at the bottom of the window
+     */
+    private static void toggleMetrics()
+    {
+        boolean show = _metricsButton.isSelected();
+        _metricsButton.setText(show ? "Metrics \u25BE" : "Metrics \u25B8");
+        _metricsPanel.setVisible(show);
+        Rectangle bounds = _frame.getBounds();
+        bounds.height = show ? 990 : 790;
+        _frame.setBounds(bounds);
+    }
+
+    /**
+     * List each part's CPU, allocation and GC figures: one line for people,
+     * and then the same again as JSON, to copy into other tools
+     */
+    private static void showMetrics()
+    {
+        StringBuilder text = new StringBuilder();
+        if (_samplesReport != null)
+            text.append(_samplesReport + "\n");
+        for (Result result : _results)
+        {
+            if (result == null)
+                continue;
+            text.append("Part " + result.getPart() + ": wall " + result.timeText());
+            if (result.parseText() != null)
+                text.append(", parse " + result.parseText());
+            if (result.cached)
+                text.append(" (cached)");
+            if (result.samples != null && result.samples.length > 1)
+                text.append(" (median of " + result.samples.length + ")");
+            if (result.metrics != null)
+                text.append(", " + result.metrics);
+            text.append("\n");
+            if (result.history != null)
+                text.append("  " + result.history + "\n");
+        }
+        text.append("\n");
+        for (Result result : _results)
+        {
+            if (result != null)
+                text.append(result.toJson() + "\n");
+        }
+
+        // Hot methods, for profiled parts
+        boolean profiled = false;
+        for (Result result : _results)
+        {
+            if (result != null && result.profile == null && result.profileFile != null)
+                text.append("\nPart " + result.getPart() + " profiled in the child JVM: " + result.profileFile + "\n");
+            if (result == null || result.profile == null)
+                continue;
+            profiled = true;
+            text.append("\nPart " + result.getPart() + " hot methods (self, total) from "
+                    + result.profile.samples() + " samples:\n");
+            for (String line : result.profile.hotMethods(HOT_METHODS))
+                text.append(line + "\n");
+            if (result.profileFile != null)
+                text.append("Flame graph stacks: " + result.profileFile + "\n");
+        }
+        if (profiled && !_metricsButton.isSelected())
+        {
+            _metricsButton.setSelected(true);
+            toggleMetrics();
+        }
+        _metrics.setText(text.toString());
+    }
+
+    /**
+     * Start a flight recording, to cover this one Execute
+     */
+    private static void startRecording(ADay day)
+    {
         try
         {
-            Reader reader = new Reader(data);
-            long start = System.currentTimeMillis();
-            String answer = "" + day.solvePart1(reader);
-            long millis = System.currentTimeMillis() - start;
-            _output1.setText(answer);
-            _output1.setBackground(Color.white);
-            _output1.setForeground(Color.black);
-            _time1.setText(String.format("%d.%03d sec", millis / 1000, millis % 1000));
+            _recordingFile = FlightRecording.newFile(year, day.getDay());
+            _recording = FlightRecording.start(day.toString());
         }
         catch (Exception ex)
         {
-            System.out.println("EXCEPTION: " + ex.getMessage());
-            ex.printStackTrace(new java.io.PrintStream(System.out));
-            _output1.setText("EXCEPTION: " + ex.getMessage());
-            _output1.setBackground(Color.white);
-            _output1.setForeground(Color.red);
+            warn("Unable to start recording: " + ex.getMessage());
         }
+    }
 
-        // Try to solve the second half of this problem
+    /**
+     * Once both parts are done, save the recording (if any) to a file
+     */
+    private static void stopRecording()
+    {
+        if (_recording == null)
+            return;
+        FlightRecording recording = _recording;
+        _recording = null;
         try
         {
-            Reader reader = new Reader(data);
-            long start = System.currentTimeMillis();
-            String answer = "" + day.solvePart2(reader);
-            long millis = System.currentTimeMillis() - start;
-            _output2.setText(answer);
-            _output2.setBackground(Color.white);
-            _output2.setForeground(Color.black);
-            _time2.setText(String.format("%d.%03d sec", millis / 1000, millis % 1000));
+            File file = recording.stop(_recordingFile);
+            System.out.println("Saved flight recording to " + file);
+            if (_status.getText().isEmpty())
+                _status.setForeground(Color.black);
+            String tip = _status.getToolTipText();
+            _status.setToolTipText((tip == null ? "" : tip + "; ") + "Recording: " + file);
+            _status.setText(_status.getToolTipText());
         }
         catch (Exception ex)
         {
-            _output2.setBackground(Color.white);
-            if (ex.getMessage().equals("Not implemented yet"))
-            {
-                _output2.setText(ex.getMessage());
-                _output2.setForeground(Color.gray);
-            }
-            else
-            {
-                ex.printStackTrace(new java.io.PrintStream(System.out));
-                _output2.setText("EXCEPTION: " + ex.getMessage());
-                _output2.setForeground(Color.red);
-            }
+            warn("Unable to save recording: " + ex.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,184 @@
+package AoC;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Just enough JSON to write one flat object per line, for scripts and other tools,
+ * and to read such a line back.
+ *
+ * Usage: new Json().add("day", 5).add("answer", "abc").toString()
+ *        Map<String, Object> fields = Json.parse(line);
+ */
+class Json
+{
+    private final StringBuilder _builder = new StringBuilder("{");
+
+    /**
+     * Add a field. Numbers and booleans are written as-is; anything else as a string.
+     */
+    Json add(String key, Object value)
+    {
+        if (_builder.length() > 1)
+            _builder.append(',');
+        quote(_builder, key);
+        _builder.append(':');
+        if (value == null)
+            _builder.append("null");
+        else if (value instanceof Number || value instanceof Boolean)
+            _builder.append(value);
+        else
+            quote(_builder, value.toString());
+        return this;
+    }
+
+    public String toString()
+    {
+        return _builder.toString() + "}";
+    }
+
+    static void quote(StringBuilder builder, String s)
+    {
+        builder.append('"');
+        for (int i = 0; i < s.length(); i++)
+        {
+            char ch = s.charAt(i);
+            switch (ch)
+            {
+            case '"':
+                builder.append("\\\"");
+                break;
+            case '\\':
+                builder.append("\\\\");
+                break;
+            case '\n':
+                builder.append("\\n");
+                break;
+            case '\r':
+                builder.append("\\r");
+                break;
+            case '\t':
+                builder.append("\\t");
+                break;
+            default:
+                if (ch < 0x20)
+                    builder.append(String.format("\\u%04x", (int)ch));
+                else
+                    builder.append(ch);
+                break;
+            }
+        }
+        builder.append('"');
+    }
+
+    /**
+     * Read one flat object, as written by this class. Numbers come back as
+     * Long (or Double, if they have a fraction), and strings, booleans and null as you'd expect.
+     *
+     * @throws IllegalArgumentException if the text is not such an object
+     */
+    static Map<String, Object> parse(String text)
+    {
+        Map<String, Object> fields = new LinkedHashMap<String, Object>();
+        int[] pos = { skipSpaces(text, 0) };
+        expect(text, pos, '{');
+        if (peek(text, pos) == '}')
+            return fields;
+        while (true)
+        {
+            String key = parseString(text, pos);
+            expect(text, pos, ':');
+            fields.put(key, parseValue(text, pos));
+            if (peek(text, pos) == '}')
+                return fields;
+            expect(text, pos, ',');
+        }
+    }
+
+    private static Object parseValue(String text, int[] pos)
+    {
+        char ch = peek(text, pos);
+        if (ch == '"')
+            return parseString(text, pos);
+        int start = pos[0];
+        while (pos[0] < text.length() && ",}".indexOf(text.charAt(pos[0])) < 0)
+            pos[0]++;
+        String word = text.substring(start, pos[0]).trim();
+        switch (word)
+        {
+        case "null":
+            return null;
+        case "true":
+            return Boolean.TRUE;
+        case "false":
+            return Boolean.FALSE;
+        default:
+            try
+            {
+                if (word.contains(".") || word.contains("e") || word.contains("E"))
+                    return Double.parseDouble(word);
+                return Long.parseLong(word);
+            }
+            catch (NumberFormatException ex)
+            {
+                throw new IllegalArgumentException("Bad JSON value: " + word);
+            }
+        }
+    }
+
+    private static String parseString(String text, int[] pos)
+    {
+        expect(text, pos, '"');
+        StringBuilder builder = new StringBuilder();
+        while (pos[0] < text.length())
+        {
+            char ch = text.charAt(pos[0]++);
+            if (ch == '"')
+                return builder.toString();
+            if (ch == '\\' && pos[0] < text.length())
+            {
+                ch = text.charAt(pos[0]++);
+                switch (ch)
+                {
+                case 'n':
+                    ch = '\n';
+                    break;
+                case 'r':
+                    ch = '\r';
+                    break;
+                case 't':
+                    ch = '\t';
+                    break;
+                case 'u':
+                    ch = (char)Integer.parseInt(text.substring(pos[0], pos[0] + 4), 16);
+                    pos[0] += 4;
+                    break;
+                default:
+                    break;  // \" \\ and \/ stand for themselves
+                }
+            }
+            builder.append(ch);
+        }
+        throw new IllegalArgumentException("Unterminated JSON string");
+    }
+
+    private static char peek(String text, int[] pos)
+    {
+        pos[0] = skipSpaces(text, pos[0]);
+        return pos[0] < text.length() ? text.charAt(pos[0]) : '\0';
+    }
+
+    private static void expect(String text, int[] pos, char expected)
+    {
+        if (peek(text, pos) != expected)
+            throw new IllegalArgumentException("JSON expected '" + expected + "' at position " + pos[0]);
+        pos[0]++;
+    }
+
+    private static int skipSpaces(String text, int pos)
+    {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos)))
+            pos++;
+        return pos;
+    }
+}
@@ -17,10 +17,10 @@ import java.security.NoSuchAlgorithmException;
 public class MD5
 {
     /**
-     * I have not had reason to worry about reusing a digest instance,
-     * so share one instance across all callers.
+     * Reuse a digest instance, rather than creating one per hash.
+     * Part 1 and part 2 run on separate threads, so each thread gets its own.
      */
-    private static MessageDigest md5;
+    private static final ThreadLocal<MessageDigest> md5 = ThreadLocal.withInitial(MD5::init);
 
     /**
      * Wrap the initialization step in a try/catch block
@@ -39,13 +39,11 @@ public class MD5
     }
 
     /**
-     * Initialize the shared MD5 object on demand
+     * Get this thread's MD5 object, initialized on demand
      */
     private static MessageDigest shared()
     {
-        if (md5 == null)
-            md5 = init();
-        return md5;
+        return md5.get();
     }
 
     /**
@@ -57,6 +55,7 @@ public class MD5
     {
         MessageDigest md = shared();
         md.update(input);
+        Events.hashed(input.length);
         return md.digest();
     }
 
@@ -68,7 +67,9 @@ public class MD5
     public static byte[] hash(String input)
     {
         MessageDigest md = shared();
-        md.update(input.getBytes());
+        byte[] bytes = input.getBytes();
+        md.update(bytes);
+        Events.hashed(bytes.length);
         return md.digest();
     }
 }
\ No newline at end of file
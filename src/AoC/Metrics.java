@@ -0,0 +1,193 @@
+package AoC;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import AoC.collections.OffHeap;
+
+/**
+ * Resource usage of one solve, beyond its wall-clock time.
+ *
+ * CPU time and allocation are measured for the solver's own thread.
+ * Garbage collection, peak heap and peak off-heap are JVM-wide, so while both parts
+ * run at once, each part's figures include the other's.
+ *
+ * Each solve watches its own peaks, from its start to its stop, so solves that
+ * overlap don't reset each other's. Peak off-heap is exact; peak heap is polled
+ * every HEAP_POLL_MILLIS while any solve runs, so a spike shorter than that
+ * (typically just before a collection) may be missed.
+ *
+ * Usage: Metrics m = Metrics.start(); solve(); m.stop();
+ */
+public class Metrics
+{
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private static final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    static final long HEAP_POLL_MILLIS = 5;
+
+    /** The metrics of the solves running now, whose peak heap the poller updates */
+    private static final Set<Metrics> running = ConcurrentHashMap.newKeySet();
+    private static final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "AoC-heap-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Polling, while any solve runs (guarded by running) */
+    private static ScheduledFuture<?> polling;
+
+    /** CPU time used by the solver thread, or -1 if the JVM can't measure it */
+    public long cpuNanos = -1;
+    /** Bytes allocated by the solver thread, or -1 if the JVM can't measure it */
+    public long allocatedBytes = -1;
+    /** Garbage collections while the solver ran */
+    public long gcCount;
+    /** Time spent in those garbage collections */
+    public long gcMillis;
+    /** The most heap in use at any point while the solver ran (as polled, see above) */
+    public long peakHeapBytes;
+    /** The most memory held by off-heap collections (OffHeapLongSet...) at once, beyond what they held at the start */
+    public long peakOffHeapBytes;
+
+    private long _threadId;
+    private final AtomicLong _peakHeap = new AtomicLong();
+    private OffHeap.Peak _offHeapPeak;
+    private long _offHeapAtStart;
+
+    /**
+     * Take the starting readings, on the solver thread
+     */
+    public static Metrics start()
+    {
+        Metrics m = new Metrics();
+        m._threadId = Thread.currentThread().getId();
+        m.cpuNanos = threadCpu();
+        m.allocatedBytes = threadAllocated(m._threadId);
+        m.gcCount = -gcCount();
+        m.gcMillis = -gcMillis();
+        m._offHeapAtStart = OffHeap.reserved();
+        m._offHeapPeak = OffHeap.watchPeak();
+        m._peakHeap.set(heapUsed());
+        synchronized (running)
+        {
+            running.add(m);
+            if (polling == null)
+                polling = poller.scheduleAtFixedRate(Metrics::poll, HEAP_POLL_MILLIS, HEAP_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return m;
+    }
+
+    /**
+     * Take the final readings, on the same thread as start()
+     */
+    public Metrics stop()
+    {
+        cpuNanos = difference(threadCpu(), cpuNanos);
+        allocatedBytes = difference(threadAllocated(_threadId), allocatedBytes);
+        gcCount += gcCount();
+        gcMillis += gcMillis();
+        synchronized (running)
+        {
+            running.remove(this);
+            if (running.isEmpty() && polling != null)
+            {
+                polling.cancel(false);
+                polling = null;
+            }
+        }
+        peakHeapBytes = _peakHeap.accumulateAndGet(heapUsed(), Math::max);
+        _offHeapPeak.close();
+        peakOffHeapBytes = Math.max(0, _offHeapPeak.get() - _offHeapAtStart);
+        return this;
+    }
+
+    /**
+     * One reading of the heap, for every solve running now
+     */
+    private static void poll()
+    {
+        long used = heapUsed();
+        for (Metrics m : running)
+            m._peakHeap.accumulateAndGet(used, Math::max);
+    }
+
+    private static long heapUsed()
+    {
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static long difference(long end, long start)
+    {
+        return end < 0 || start < 0 ? -1 : end - start;
+    }
+
+    private static long threadCpu()
+    {
+        if (!threads.isCurrentThreadCpuTimeSupported())
+            return -1;
+        return threads.getCurrentThreadCpuTime();
+    }
+
+    /**
+     * Allocation counting is a HotSpot extension, so it may not be there
+     */
+    private static long threadAllocated(long threadId)
+    {
+        if (threads instanceof com.sun.management.ThreadMXBean)
+        {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean)threads;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled())
+                return hotspot.getThreadAllocatedBytes(threadId);
+        }
+        return -1;
+    }
+
+    private static long gcCount()
+    {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            count += Math.max(0, gc.getCollectionCount());
+        return count;
+    }
+
+    private static long gcMillis()
+    {
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            millis += Math.max(0, gc.getCollectionTime());
+        return millis;
+    }
+
+    /**
+     * One line, for people: "cpu 1.200 sec, alloc 345.6 MB, GC 3 (12 ms), peak heap 120.0 MB"
+     * (and ", off-heap 1.50 GB" if the solver used off-heap collections)
+     */
+    public String toString()
+    {
+        return "cpu " + (cpuNanos < 0 ? "n/a" : Result.formatTime(cpuNanos))
+                + ", alloc " + (allocatedBytes < 0 ? "n/a" : formatBytes(allocatedBytes))
+                + ", GC " + gcCount + " (" + gcMillis + " ms)"
+                + ", peak heap " + formatBytes(peakHeapBytes)
+                + (peakOffHeapBytes > 0 ? ", off-heap " + formatBytes(peakOffHeapBytes) : "");
+    }
+
+    public static String formatBytes(long bytes)
+    {
+        if (bytes < 1024)
+            return bytes + " B";
+        if (bytes < 1024 * 1024)
+            return String.format("%.1f KB", bytes / 1024.0);
+        if (bytes < 1024L * 1024 * 1024)
+            return String.format("%.1f MB", bytes / (1024.0 * 1024));
+        return String.format("%.2f GB", bytes / (1024.0 * 1024 * 1024));
+    }
+}
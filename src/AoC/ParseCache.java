@@ -0,0 +1,136 @@
+package AoC;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Remembers the most recent parses of each ParsedDay, keyed by the hash of their input.
+ * Both parts of a day ask for the parse at about the same time; the first one
+ * does the work, and the other waits for it. Later runs of the same input
+ * (re-executing, or repeated timing runs) skip the parse altogether.
+ */
+class ParseCache
+{
+    /**
+     * How many parses to keep: enough for a day's samples and its real input (see Batch)
+     */
+    static final int MAX_ENTRIES = 16;
+
+    /**
+     * Keyed by day class name and input hash, least recently used first
+     */
+    private static final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(MAX_ENTRIES, 0.75f, true)
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ParseCache.Entry> eldest)
+        {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private static class Entry
+    {
+        final Class<?> type;
+        final FutureTask<Object> parse;
+
+        Entry(Class<?> type, FutureTask<Object> parse)
+        {
+            this.type = type;
+            this.parse = parse;
+        }
+    }
+
+    /**
+     * Get the parsed form of an input, parsing it now if nobody has yet.
+     * Records in the result how long the parse took, or that it was reused.
+     */
+    static Object parse(ParsedDay<?> day, Input input, Result result)
+    {
+        while (true)
+        {
+            Entry entry;
+            boolean mine = false;
+            synchronized (entries)
+            {
+                String key = key(day, input);
+                entry = entries.get(key);
+                // a reloaded class with the same name is a different class, which may parse differently
+                if (entry == null || entry.type != day.getClass())
+                {
+                    entry = new Entry(day.getClass(), new FutureTask<Object>(() -> day.parse(input.reader())));
+                    entries.put(key, entry);
+                    mine = true;
+                }
+            }
+
+            if (mine)
+            {
+                Events.Parse event = Events.beginParse(day.getDay());
+                long start = System.nanoTime();
+                entry.parse.run();
+                result.parseNanos = System.nanoTime() - start;
+                result.parseReused = false;
+                Events.endParse(event);
+            }
+            else
+            {
+                result.parseReused = true;
+            }
+
+            try
+            {
+                return entry.parse.get();
+            }
+            catch (InterruptedException ex)
+            {
+                throw new CancellationException("Cancelled");
+            }
+            catch (ExecutionException ex)
+            {
+                // Don't remember a failed (or cancelled) parse; the next run should try again
+                forget(entry);
+                Throwable cause = ex.getCause();
+                // The part doing the parse was cancelled (or timed out), not this one: parse it here instead
+                if (cause instanceof CancellationException && !mine && !Thread.currentThread().isInterrupted())
+                    continue;
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException)cause;
+                if (cause instanceof Error)
+                    throw (Error)cause;
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+
+    /**
+     * Drop a day's parse of an input (e.g. a part modified it), so the next run parses it again
+     */
+    static void forget(ParsedDay<?> day, Input input)
+    {
+        synchronized (entries)
+        {
+            String key = key(day, input);
+            Entry entry = entries.get(key);
+            if (entry != null && entry.type == day.getClass())
+                entries.remove(key);
+        }
+    }
+
+    private static String key(ParsedDay<?> day, Input input)
+    {
+        return day.getClass().getName() + "/" + input.hash();
+    }
+
+    private static void forget(Entry entry)
+    {
+        synchronized (entries)
+        {
+            entries.values().remove(entry);
+        }
+    }
+}
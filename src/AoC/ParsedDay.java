@@ -0,0 +1,72 @@
+package AoC;
+
+/**
+ * An optional base class for days whose input takes real work to parse.
+ * Rather than having both parts parse the input from scratch, override parse()
+ * to turn the input into whatever structure your solvers want. Then override
+ * solvePart1 (and later solvePart2) taking that structure instead of a Reader.
+ *
+ * The runner parses each input once, hands the result to both parts, and
+ * remembers it, so re-running the same input skips the parse altogether.
+ * Both parts share the parsed result, and may run at the same time, so treat
+ * it as read-only. (A part that modifies it fails, and the input is parsed again next time.)
+ *
+ * Example:
+ * public class Day27 extends ParsedDay<int[]>
+ * {
+ *    public Day27() { super(27, "Parse Once"); }
+ *
+ *    public int[] parse(Reader input) { ... }
+ *
+ *    public Object solvePart1(int[] numbers) { ... }
+ * }
+ *
+ * @param <T> the type produced by parse()
+ */
+public abstract class ParsedDay<T> extends ADay
+{
+    protected ParsedDay(int day, String title)
+    {
+        super(day, title);
+    }
+
+    /**
+     * Read the whole input into a structure that both parts can use.
+     */
+    public abstract T parse(Reader input);
+
+    /**
+     * Override solvePart1 when you create each new Day.
+     */
+    public abstract Object solvePart1(T input);
+
+    /**
+     * Override solvePart2 after you solve part 1.
+     */
+    public Object solvePart2(T input)
+    {
+        throw new UnsupportedOperationException("Not implemented yet");
+    }
+
+    /**
+     * Without the runner's help, just parse and solve.
+     */
+    public final Object solvePart1(Reader input)
+    {
+        return solvePart1(parse(input));
+    }
+
+    public final Object solvePart2(Reader input)
+    {
+        return solvePart2(parse(input));
+    }
+
+    /**
+     * Solve either part, from an already parsed input
+     */
+    @SuppressWarnings("unchecked")
+    Object solve(int part, Object parsed)
+    {
+        return part == 1 ? solvePart1((T)parsed) : solvePart2((T)parsed);
+    }
+}
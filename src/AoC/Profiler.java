@@ -0,0 +1,184 @@
+package AoC;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A simple sampling profiler for one solver thread.
+ *
+ * Every few milliseconds, a background thread takes a snapshot of the solver's
+ * stack. Afterwards, the samples tell us which methods the solver was in most
+ * of the time (the "hot" methods), and can be saved in the collapsed-stack
+ * format that flame graph tools read (one line per distinct stack:
+ * "root;caller;...;leaf count").
+ *
+ * Usage: Profiler p = Profiler.start(Thread.currentThread(), 10); solve(); p.stop();
+ */
+public class Profiler implements Runnable
+{
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private final long _threadId;
+    private final long _intervalMillis;
+    private final Thread _sampler;
+    private volatile boolean _running = true;
+
+    /** How many samples had each method at the top of the stack */
+    private final Map<String, Integer> _self = new HashMap<String, Integer>();
+    /** How many samples had each method anywhere on the stack */
+    private final Map<String, Integer> _total = new HashMap<String, Integer>();
+    /** How many samples had each complete stack, in collapsed form */
+    private final Map<String, Integer> _stacks = new HashMap<String, Integer>();
+    private int _samples;
+
+    private Profiler(Thread target, long intervalMillis)
+    {
+        _threadId = target.getId();
+        _intervalMillis = Math.max(1, intervalMillis);
+        _sampler = new Thread(this, "AoC-profiler");
+        _sampler.setDaemon(true);
+    }
+
+    /**
+     * Start sampling a thread
+     */
+    public static Profiler start(Thread target, long intervalMillis)
+    {
+        Profiler profiler = new Profiler(target, intervalMillis);
+        profiler._sampler.start();
+        return profiler;
+    }
+
+    /**
+     * Stop sampling, and wait for the sampler to finish its last sample.
+     * Waits even if the calling thread is interrupted (as a cancelled solver is),
+     * since the samples mustn't be read while the sampler may still be writing them.
+     */
+    public Profiler stop()
+    {
+        _running = false;
+        _sampler.interrupt();
+        boolean interrupted = false;
+        while (true)
+        {
+            try
+            {
+                _sampler.join();
+                break;
+            }
+            catch (InterruptedException ex)
+            {
+                interrupted = true;
+            }
+        }
+        if (interrupted)
+        {
+            // The solver itself was interrupted; keep the flag for the caller
+            Thread.currentThread().interrupt();
+        }
+        return this;
+    }
+
+    @Override
+    public void run()
+    {
+        while (_running)
+        {
+            ThreadInfo info = threads.getThreadInfo(_threadId, Integer.MAX_VALUE);
+            if (info == null)
+                break;  // the thread has gone
+            record(info.getStackTrace());
+            try
+            {
+                Thread.sleep(_intervalMillis);
+            }
+            catch (InterruptedException ex)
+            {
+                break;
+            }
+        }
+    }
+
+    private void record(StackTraceElement[] stack)
+    {
+        if (stack.length == 0)
+            return;
+        _samples++;
+        increment(_self, frame(stack[0]));
+
+        // Each method counts once per sample, even if it recurses
+        StringBuilder collapsed = new StringBuilder();
+        Map<String, Boolean> seen = new HashMap<String, Boolean>();
+        for (int i = stack.length - 1; i >= 0; i--)
+        {
+            String frame = frame(stack[i]);
+            if (seen.put(frame, Boolean.TRUE) == null)
+                increment(_total, frame);
+            if (collapsed.length() > 0)
+                collapsed.append(';');
+            collapsed.append(frame);
+        }
+        increment(_stacks, collapsed.toString());
+    }
+
+    private static String frame(StackTraceElement element)
+    {
+        return element.getClassName() + "." + element.getMethodName();
+    }
+
+    private static void increment(Map<String, Integer> counts, String key)
+    {
+        Integer count = counts.get(key);
+        counts.put(key, count == null ? 1 : count + 1);
+    }
+
+    public int samples() { return _samples; }
+
+    /**
+     * The methods most often found running (at the top of the stack), hottest first,
+     * as lines like " 42.0%  37.5%  Day5.solvePart1" (self, then total)
+     */
+    public List<String> hotMethods(int count)
+    {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<Map.Entry<String, Integer>>(_self.entrySet());
+        entries.sort((a, b) -> b.getValue() - a.getValue());
+        List<String> lines = new ArrayList<String>();
+        for (Map.Entry<String, Integer> entry : entries.subList(0, Math.min(count, entries.size())))
+        {
+            lines.add(String.format("%5.1f%% %5.1f%%  %s",
+                    100.0 * entry.getValue() / _samples,
+                    100.0 * _total.get(entry.getKey()) / _samples,
+                    entry.getKey()));
+        }
+        return lines;
+    }
+
+    /**
+     * Save the samples in collapsed-stack format, for flame graph tools
+     */
+    public File save(File file) throws IOException
+    {
+        try (PrintWriter out = new PrintWriter(file, "UTF-8"))
+        {
+            for (Map.Entry<String, Integer> entry : _stacks.entrySet())
+                out.println(entry.getKey() + " " + entry.getValue());
+        }
+        return file;
+    }
+
+    /**
+     * A file name in the profiles folder, e.g. 2016-day5-part1.collapsed
+     */
+    static File file(int year, int day, int part)
+    {
+        return new File(Storage.dir("profiles"), year + "-day" + day + "-part" + part + ".collapsed");
+    }
+}
@@ -0,0 +1,161 @@
+package AoC;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A sign of life from a long-running solver.
+ *
+ * Each solver has one: call progress() in your day class. Then, in your main loop,
+ * call tick() once per state (or add(n) per batch). If you know how many states
+ * there are, call total(n) first, and the runner can estimate the time remaining.
+ * If you are searching for the best answer, call best(value) whenever it improves.
+ *
+ * The runner samples the progress a few times a second, and shows the rate,
+ * ETA and best value while the part runs.
+ *
+ * Updating is cheap: no locks, no waiting, and no memory fences beyond an ordered store.
+ * As a bonus, tick() checks for cancellation every few thousand ticks, so a
+ * solver that ticks doesn't need to call ADay.checkCancelled() as well.
+ */
+public class Progress
+{
+    private static final AtomicLongFieldUpdater<Progress> COUNT = AtomicLongFieldUpdater.newUpdater(Progress.class, "_count");
+
+    /** Only the solver thread writes this; the runner just reads it */
+    private volatile long _count;
+    private volatile long _total;
+    private volatile Object _best;
+
+    /**
+     * Count one more iteration (or state, or whatever)
+     */
+    public void tick()
+    {
+        long next = _count + 1;
+        COUNT.lazySet(this, next);
+        if ((next & 0xFFF) == 0)
+            ADay.checkCancelled();
+    }
+
+    /**
+     * Count several iterations at once
+     */
+    public void add(long n)
+    {
+        COUNT.lazySet(this, _count + n);
+        ADay.checkCancelled();
+    }
+
+    /**
+     * Set the count directly, e.g. to the current generation of a simulation
+     */
+    public void set(long count)
+    {
+        COUNT.lazySet(this, count);
+    }
+
+    /**
+     * How many iterations the solver expects in all (0 if unknown)
+     */
+    public void total(long total)
+    {
+        _total = total;
+    }
+
+    /**
+     * The best answer so far, to show while the search continues
+     */
+    public void best(Object best)
+    {
+        _best = best;
+    }
+
+    public long count() { return _count; }
+    public long total() { return _total; }
+    public Object best() { return _best; }
+
+    /**
+     * Is there anything to report?
+     */
+    public boolean isActive()
+    {
+        return _count > 0 || _best != null;
+    }
+
+    /**
+     * Turns periodic samples of a Progress into a rate and ETA
+     */
+    public static class Meter
+    {
+        private final Progress _progress;
+        private long _lastCount;
+        private long _lastNanos;
+        private double _rate = -1;
+
+        public Meter(Progress progress)
+        {
+            _progress = progress;
+            _lastNanos = System.nanoTime();
+        }
+
+        /**
+         * Take a sample, and describe it: e.g. "1.25M/s, 40%, ETA 0:12, best 1234"
+         *
+         * @return the description, or null if the solver hasn't reported any progress
+         */
+        public String sample()
+        {
+            long now = System.nanoTime();
+            long count = _progress.count();
+            if (now > _lastNanos)
+            {
+                double rate = (count - _lastCount) * 1e9 / (now - _lastNanos);
+                // Smooth the rate a little, so the display doesn't flicker
+                _rate = _rate < 0 ? rate : 0.7 * _rate + 0.3 * rate;
+            }
+            _lastCount = count;
+            _lastNanos = now;
+            if (!_progress.isActive())
+                return null;
+
+            StringBuilder text = new StringBuilder();
+            text.append(formatCount(count));
+            text.append(" (" + formatCount((long)_rate) + "/s)");
+            long total = _progress.total();
+            if (total > 0)
+            {
+                text.append(String.format(", %d%%", Math.min(100, count * 100 / total)));
+                if (_rate > 0 && count < total)
+                {
+                    long seconds = (long)((total - count) / _rate);
+                    text.append(String.format(", ETA %d:%02d", seconds / 60, seconds % 60));
+                }
+            }
+            if (_progress.best() != null)
+                text.append(", best " + _progress.best());
+            return text.toString();
+        }
+
+        /**
+         * The rate, as of the last sample
+         */
+        public double rate()
+        {
+            return Math.max(0, _rate);
+        }
+    }
+
+    /**
+     * Format a large count briefly: 1234567 -> "1.23M"
+     */
+    public static String formatCount(long n)
+    {
+        if (n < 10000)
+            return Long.toString(n);
+        if (n < 1000000)
+            return String.format("%.1fK", n / 1e3);
+        if (n < 1000000000)
+            return String.format("%.2fM", n / 1e6);
+        return String.format("%.2fG", n / 1e9);
+    }
+}
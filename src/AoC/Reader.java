@@ -57,6 +57,19 @@ public class Reader {
         posEnd = buffer.length;
     }
 
+    /**
+     * Initialize this reader with characters, which it shares rather than copies.
+     * Many Readers can safely share the same characters (a Reader never changes them),
+     * but don't change them yourself while they are being read.
+     * 
+     * @param chars
+     */
+    public Reader(char[] chars) {
+        buffer = chars;
+        posStart = pos = 0;
+        posEnd = buffer.length;
+    }
+
     /**
      * Initialize this reader with a sub-range from another reader
      * 
@@ -185,6 +198,26 @@ public class Reader {
         this.pos = pos;
     }
 
+    /**
+     * Look at the character at any position in the buffer, without moving the reader
+     * 
+     * @param position any position from startPosition() to endPosition() - 1
+     */
+    public char charAt(int position) {
+        if (position < posStart || position >= posEnd)
+            throw new IndexOutOfBoundsException(
+                    position + " is not a valid position. Must be in the range [" + posStart + ", " + posEnd + ")");
+        return buffer[position];
+    }
+
+    /**
+     * The whole shared buffer, for library code that scans it in place (see WordCounter).
+     * Positions are the same as the reader's.
+     */
+    char[] buffer() {
+        return buffer;
+    }
+
     /**
      * Look at the next character, without incrementing the reader
      */
@@ -427,6 +460,19 @@ public class Reader {
         return subString(prev, pos);
     }
 
+    /**
+     * Skip a single word/number/punctuation, like nextNonSpace(), but without
+     * making a String of it. Use position() before and after to find it.
+     * 
+     * @return the number of characters skipped
+     */
+    public int scanNonSpace() {
+        int prev = pos;
+        while (pos < posEnd && !Character.isWhitespace(buffer[pos]))
+            pos++;
+        return pos - prev;
+    }
+
     /**
      * Read all of the text until the first occurrence of a specific character, or
      * the end of the buffer
@@ -736,11 +782,13 @@ public class Reader {
      */
     public Reader[] allLines()
     {
+        Events.ParseBlock event = Events.beginParseBlock("allLines");
         ArrayList<Reader> lines = new ArrayList<Reader>();
         for (Reader r : lines())
         {
             lines.add(r);
         }
+        Events.endParseBlock(event, posEnd - pos, lines.size());
         return lines.toArray(new Reader[lines.size()]);
     }
 
@@ -749,11 +797,13 @@ public class Reader {
      */
     public String[] allLineStrings()
     {
+        Events.ParseBlock event = Events.beginParseBlock("allLineStrings");
         ArrayList<String> lines = new ArrayList<String>();
         for (Reader r : lines())
         {
             lines.add(r.String());
         }
+        Events.endParseBlock(event, posEnd - pos, lines.size());
         return lines.toArray(new String[lines.size()]);
     }
 
@@ -762,11 +812,13 @@ public class Reader {
      */
     public int countLines()
     {
+        Events.ParseBlock event = Events.beginParseBlock("countLines");
         int count = 0;
         int prev = pos;
         while (scanUntilNextLine() > 0)
             count++;
         pos = prev;
+        Events.endParseBlock(event, posEnd - pos, count);
         return count;
     }
 
@@ -0,0 +1,129 @@
+package AoC;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The outcome of solving one part of one day.
+ * Created by the Runner, and handed to whoever asked for the solve
+ * (the Swing UI, or a headless caller).
+ */
+public class Result
+{
+    /**
+     * How did the solve end?
+     */
+    public enum Status
+    {
+        SOLVED,
+        UNIMPLEMENTED,
+        FAILED,
+        CANCELLED,
+        TIMED_OUT
+    }
+
+    private final int _day;
+    private final int _part;
+
+    /** How the solve ended */
+    public Status status;
+    /** The answer, as text, if the solve succeeded. Otherwise a short message. */
+    public String answer;
+    /** The exception thrown by the solver, if any */
+    public Throwable error;
+    /** Wall-clock time spent in the solver (the median, if it was solved repeatedly) */
+    public long nanos;
+    /** The time of each repeated solve, if it was */
+    public long[] samples;
+    /** True if the answer came from the answer cache, rather than a fresh solve */
+    public boolean cached;
+    /** Time this part spent parsing the input (ParsedDay only), or -1 if it did not parse */
+    public long parseNanos = -1;
+    /** True if this part reused an earlier parse, or the other part's */
+    public boolean parseReused;
+    /** CPU, allocation and GC figures for a fresh solve; null for a cached answer */
+    public Metrics metrics;
+    /** Stack samples of the solve, if it was profiled */
+    public Profiler profile;
+    /** Where those samples were saved, in collapsed-stack form */
+    public File profileFile;
+    /** How this run compares with the best earlier run on the same input */
+    public String history;
+    /** True if this run was significantly slower than the best earlier run */
+    public boolean regression;
+    /** Anything suspicious the runner noticed about the solver, even if it succeeded */
+    public final List<String> warnings = new ArrayList<String>();
+
+    public Result(int day, int part)
+    {
+        _day = day;
+        _part = part;
+    }
+
+    public int getDay() { return _day; }
+    public int getPart() { return _part; }
+
+    /**
+     * Format the wall-clock time the same way the UI always has: "1.234 sec"
+     */
+    public String timeText()
+    {
+        return formatTime(nanos);
+    }
+
+    /**
+     * Describe the parse stage, or return null if this day has none
+     */
+    public String parseText()
+    {
+        if (parseReused)
+            return "reused";
+        if (parseNanos >= 0)
+            return formatTime(parseNanos);
+        return null;
+    }
+
+    public static String formatTime(long nanos)
+    {
+        long millis = nanos / 1000000;
+        return String.format("%d.%03d sec", millis / 1000, millis % 1000);
+    }
+
+    /**
+     * The result as one line of JSON, for scripts and other tools
+     */
+    public String toJson()
+    {
+        Json json = new Json()
+                .add("day", _day)
+                .add("part", _part)
+                .add("status", status)
+                .add("answer", answer)
+                .add("nanos", nanos)
+                .add("cached", cached);
+        if (parseNanos >= 0 || parseReused)
+            json.add("parseNanos", parseNanos).add("parseReused", parseReused);
+        if (metrics != null)
+        {
+            json.add("cpuNanos", metrics.cpuNanos)
+                .add("allocatedBytes", metrics.allocatedBytes)
+                .add("gcCount", metrics.gcCount)
+                .add("gcMillis", metrics.gcMillis)
+                .add("peakHeapBytes", metrics.peakHeapBytes)
+                .add("peakOffHeapBytes", metrics.peakOffHeapBytes);
+        }
+        if (samples != null)
+            json.add("runs", samples.length);
+        if (history != null)
+            json.add("history", history).add("regression", regression);
+        if (profile != null)
+            json.add("samples", profile.samples()).add("profileFile", profileFile);
+        return json.toString();
+    }
+
+    public String toString()
+    {
+        return "Day " + _day + " part " + _part + ": " + status + " " + answer + " (" + timeText() + ")";
+    }
+}
@@ -0,0 +1,423 @@
+package AoC;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Runs a day's solvers on background threads, so that a long solve never
+ * freezes the UI.
+ *
+ * Part 1 and part 2 can run at the same time. So each part is solved by its
+ * own instance of the day, with its own Reader, and the runner warns about any
+ * solver that keeps state in instance fields, or changes static ones (see SharedState).
+ *
+ * Days that extend ParsedDay have their input parsed once, and the parsed
+ * form is shared by both parts (see ParseCache). The parse is timed separately
+ * from the solve.
+ *
+ * Solved answers are saved on disk (see AnswerCache). If the options allow it,
+ * a part whose input and code haven't changed since is answered from there instantly.
+ *
+ * Timings of fresh solves are kept in the History, and compared with the best
+ * earlier run on the same input. With more than one iteration, each part is
+ * solved repeatedly (reusing the parse), and the median time is reported.
+ *
+ * While a part runs, its solver can report progress (see Progress), which the
+ * caller can watch through its Task.
+ *
+ * With the fork option, each part runs in its own child JVM instead (see Fork).
+ *
+ * With profiling on, a Profiler samples the solver's stack while it runs.
+ *
+ * Each part is a Task. A task can be cancelled at any time, and can be given
+ * a wall-clock time limit. Either way, the solver thread is interrupted.
+ * Solvers are expected to notice (see ADay.checkCancelled()), but even if
+ * they don't, the task reports its result as soon as it is cancelled.
+ */
+public class Runner
+{
+    /**
+     * Solver threads are daemons, so a runaway solver never keeps the JVM
+     * alive after the window is closed.
+     */
+    private static final ExecutorService solvers = Executors.newCachedThreadPool(daemon("AoC-solver"));
+
+    /**
+     * A single thread to enforce time limits
+     */
+    private static final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(daemon("AoC-watchdog"));
+
+    /**
+     * How to run a day. The defaults suit a one-off solve.
+     */
+    public static class Options
+    {
+        /** The puzzle year; cached answers are kept separately for each year */
+        public int year;
+        /** Wall-clock limit for each part, or 0 for no limit */
+        public long timeoutMillis;
+        /** Answer from the cache, if an earlier run had the same input and code */
+        public boolean useCache;
+        /** Solve this many times, and report the median time */
+        public int iterations = 1;
+        /** Flag a run as a regression if it is significantly slower than the best earlier run by this much */
+        public double regressionPercent = 10;
+        /** Solve each part in a fresh child JVM, for clean timings (see Fork) */
+        public boolean fork;
+        /** Flags for the child JVM, e.g. "-Xmx2g -XX:+UseParallelGC" */
+        public String jvmArgs = "";
+        /** Sample the solver's stack this often (in milliseconds) to find its hot methods; 0 for no profiling */
+        public long profileMillis;
+        /** Save fresh answers in the cache, and their timings in the history (unless profiled) */
+        public boolean record = true;
+    }
+
+    private static ThreadFactory daemon(String name)
+    {
+        return r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Start solving one part of a day's puzzle on a background thread.
+     *
+     * @param day the puzzle to solve
+     * @param part 1 or 2
+     * @param input the puzzle input
+     * @param options how to run it
+     * @param listener is called exactly once, with the result, on an arbitrary thread
+     * @return the running task, which can be cancelled
+     */
+    public static Task start(ADay day, int part, Input input, Options options, Consumer<Result> listener)
+    {
+        Task task = new Task(day, part, input, options, listener);
+        task._future = solvers.submit(task);
+        if (options.timeoutMillis > 0)
+            task._timer = watchdog.schedule(() -> task.stop(Result.Status.TIMED_OUT), options.timeoutMillis, TimeUnit.MILLISECONDS);
+        return task;
+    }
+
+    /**
+     * Solve one part of a day's puzzle on the calling thread,
+     * or look up its answer in the cache.
+     * Fresh answers are saved in the cache, and their timings in the history.
+     */
+    public static Result solve(ADay day, int part, Input input, Options options)
+    {
+        return solve(day, part, input, options, new Progress());
+    }
+
+    /**
+     * Solve one part, reporting the solver's progress to a Progress the caller can watch
+     */
+    public static Result solve(ADay day, int part, Input input, Options options, Progress progress)
+    {
+        // The child does all the work: cache, timing runs and history
+        if (options.fork)
+            return Fork.solve(day, part, input, options, progress);
+
+        // A cached answer has nothing to profile, or time
+        if (options.useCache && options.profileMillis <= 0 && options.iterations <= 1)
+        {
+            Result cached = AnswerCache.get(options.year, day, part, input);
+            if (cached != null)
+                return cached;
+        }
+
+        Result result = null;
+        long[] samples = new long[Math.max(1, options.iterations)];
+        for (int i = 0; i < samples.length; i++)
+        {
+            progress.set(0);
+            Result next = solveFresh(day, part, input, options, progress);
+            if (result != null && next.status == Result.Status.SOLVED && !next.answer.equals(result.answer))
+                next.warnings.add("Part " + part + " answered " + result.answer + ", then " + next.answer + " for the same input");
+            result = next;
+            samples[i] = result.nanos;
+            if (result.status != Result.Status.SOLVED)
+                return result;
+        }
+        result.samples = samples;
+        result.nanos = median(samples);
+        // Sampling slows the solver down: a profiled time must not become a cached time, a best run or a regression
+        if (options.record && options.profileMillis > 0)
+        {
+            result.history = "Not recorded in the history: profiling slows the solver down";
+        }
+        else if (options.record)
+        {
+            AnswerCache.put(options.year, day, input, result);
+            recordHistory(day, input, options, result);
+        }
+        return result;
+    }
+
+    /**
+     * Add a solved run to the history, and note how it compares with the best earlier run
+     */
+    private static void recordHistory(ADay day, Input input, Options options, Result result)
+    {
+        History.Run run = new History.Run();
+        run.time = System.currentTimeMillis();
+        run.year = options.year;
+        run.day = day.getDay();
+        run.part = result.getPart();
+        run.input = input.hash();
+        run.code = CodeHash.of(day.getClass());
+        run.median = result.nanos;
+        run.allocated = result.metrics == null ? -1 : result.metrics.allocatedBytes;
+        run.answer = result.answer;
+        run.samples = result.samples;
+        History.Comparison comparison = History.record(run, options.regressionPercent);
+        result.history = comparison.toString();
+        result.regression = comparison.regression;
+        if (comparison.regression)
+            result.warnings.add(result.history);
+    }
+
+    static long median(long[] samples)
+    {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        int mid = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[mid] : (sorted[mid - 1] + sorted[mid]) / 2;
+    }
+
+    /**
+     * Solve one part of a day's puzzle on the calling thread, without the cache.
+     */
+    private static Result solveFresh(ADay day, int part, Input input, Options options, Progress progress)
+    {
+        Result result = new Result(day.getDay(), part);
+        ADay solver = isolate(day);
+        solver.setProgress(progress);
+        Map<Field, Integer> before = SharedState.snapshot(solver);
+        Events.Solve event = Events.beginSolve(day.getDay(), part);
+        Metrics metrics = Metrics.start();
+        Profiler profiler = options.profileMillis > 0 ? Profiler.start(Thread.currentThread(), options.profileMillis) : null;
+        long start = System.nanoTime();
+        long end = 0;
+        try
+        {
+            Object answer;
+            if (solver instanceof ParsedDay)
+            {
+                ParsedDay<?> parsedDay = (ParsedDay<?>)solver;
+                Object parsed = ParseCache.parse(parsedDay, input, result);
+                int print = SharedState.fingerprint(parsed);
+                start = System.nanoTime();
+                answer = parsedDay.solve(part, parsed);
+                // Stop the clock first: fingerprinting a large parse is no part of the solve
+                end = System.nanoTime();
+                if (SharedState.fingerprint(parsed) != print)
+                {
+                    // The answer may be wrong, and so would every later run's from the damaged parse
+                    ParseCache.forget(parsedDay, input);
+                    throw new IllegalStateException("Part " + part + " modified the parsed input, which the other part shares");
+                }
+            }
+            else
+            {
+                Reader reader = input.reader();
+                answer = part == 1 ? solver.solvePart1(reader) : solver.solvePart2(reader);
+            }
+            result.answer = "" + answer;
+            result.status = Result.Status.SOLVED;
+        }
+        catch (CancellationException ex)
+        {
+            result.answer = "Cancelled";
+            result.status = Result.Status.CANCELLED;
+        }
+        catch (UnsupportedOperationException ex)
+        {
+            if ("Not implemented yet".equals(ex.getMessage()))
+            {
+                result.answer = ex.getMessage();
+                result.status = Result.Status.UNIMPLEMENTED;
+            }
+            else
+            {
+                fail(result, ex);
+            }
+        }
+        catch (Throwable ex)
+        {
+            // Include Errors: a StackOverflowError from a deep recursion should be reported, not lost
+            fail(result, ex);
+        }
+        result.nanos = (end != 0 ? end : System.nanoTime()) - start;
+        if (profiler != null)
+        {
+            profiler.stop();
+            // A cancelled, failed or timed-out run's profile is partial: don't let it replace a whole one
+            if (result.status == Result.Status.SOLVED)
+                saveProfile(profiler, result, options);
+        }
+        result.metrics = metrics.stop();
+        Events.flushHashes();
+        Events.endSolve(event, result);
+
+        for (Field field : SharedState.changed(solver, before))
+        {
+            String problem = SharedState.isStatic(field)
+                    ? "but it is static: shared by both parts running at once"
+                    : "but the other part runs on a separate instance and will not see it";
+            result.warnings.add(field.getDeclaringClass().getSimpleName() + "." + field.getName()
+                    + " was modified by part " + part + ", " + problem);
+        }
+        return result;
+    }
+
+    /**
+     * Keep the profile with the result, and save its samples for flame graph tools
+     */
+    private static void saveProfile(Profiler profiler, Result result, Options options)
+    {
+        result.profile = profiler;
+        try
+        {
+            result.profileFile = profiler.save(Profiler.file(options.year, result.getDay(), result.getPart()));
+        }
+        catch (IOException ex)
+        {
+            result.warnings.add("Unable to save profile: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Give each part its own instance of the day, so the two parts can safely
+     * run at the same time. Days are discovered by their public no-argument
+     * constructor, so this normally works; if not, share the original.
+     */
+    private static ADay isolate(ADay day)
+    {
+        try
+        {
+            return day.getClass().getConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException | RuntimeException ex)
+        {
+            return day;
+        }
+    }
+
+    private static void fail(Result result, Throwable ex)
+    {
+        result.error = ex;
+        result.answer = "EXCEPTION: " + ex.getMessage();
+        result.status = Result.Status.FAILED;
+    }
+
+    /**
+     * One part of one day, running (or waiting to run) on a solver thread.
+     */
+    public static class Task implements Runnable
+    {
+        private final ADay _day;
+        private final int _part;
+        private final Input _input;
+        private final Options _options;
+        private final Progress _progress = new Progress();
+        private final Consumer<Result> _listener;
+        private final AtomicBoolean _finished = new AtomicBoolean();
+        private volatile long _startNanos;
+        private Future<?> _future;
+        private ScheduledFuture<?> _timer;
+
+        private Task(ADay day, int part, Input input, Options options, Consumer<Result> listener)
+        {
+            _options = options;
+            _day = day;
+            _part = part;
+            _input = input;
+            _listener = listener;
+        }
+
+        public int getPart() { return _part; }
+
+        /**
+         * What the solver has reported about its progress so far
+         */
+        public Progress progress()
+        {
+            return _progress;
+        }
+
+        /**
+         * Has the result been delivered yet?
+         */
+        public boolean isFinished()
+        {
+            return _finished.get();
+        }
+
+        /**
+         * How long has the solver been running (or did it run)?
+         */
+        public long elapsedNanos()
+        {
+            long start = _startNanos;
+            return start == 0 ? 0 : System.nanoTime() - start;
+        }
+
+        /**
+         * Ask the solver to stop, and report it as cancelled.
+         */
+        public void cancel()
+        {
+            stop(Result.Status.CANCELLED);
+        }
+
+        @Override
+        public void run()
+        {
+            _startNanos = System.nanoTime();
+            finish(solve(_day, _part, _input, _options, _progress));
+        }
+
+        /**
+         * Report a result that did not come from the solver, then interrupt the solver.
+         */
+        private void stop(Result.Status status)
+        {
+            Result result = new Result(_day.getDay(), _part);
+            result.status = status;
+            result.nanos = elapsedNanos();
+            result.answer = status == Result.Status.TIMED_OUT
+                    ? "Timed out after " + result.timeText()
+                    : "Cancelled";
+            if (finish(result))
+                _future.cancel(true);
+        }
+
+        /**
+         * Deliver the result, unless one was already delivered
+         * (e.g. the user cancelled, and then the solver finished anyway)
+         */
+        private boolean finish(Result result)
+        {
+            if (!_finished.compareAndSet(false, true))
+                return false;
+            if (_timer != null)
+                _timer.cancel(false);
+            _listener.accept(result);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package AoC;
+
+/**
+ * A small input from a puzzle's description, with the answers it is known to give.
+ * Days register their samples with ADay.addSample(), and a Batch checks them.
+ */
+public class Sample
+{
+    private final String _name;
+    private final Input _input;
+    private final String[] _expected;
+
+    Sample(String name, String input, Object part1, Object part2)
+    {
+        _name = name;
+        _input = new Input(input);
+        // Answers are compared as text, the way the runner reports them
+        _expected = new String[] { part1 == null ? null : "" + part1, part2 == null ? null : "" + part2 };
+    }
+
+    public String getName() { return _name; }
+    public Input getInput() { return _input; }
+
+    /**
+     * The expected answer for part 1 or 2, or null if it isn't known
+     */
+    public String expected(int part)
+    {
+        return _expected[part - 1];
+    }
+}
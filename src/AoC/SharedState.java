@@ -0,0 +1,118 @@
+package AoC;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Part 1 and part 2 run at the same time, each on its own instance of the day.
+ * A solver that stashes results in instance fields (e.g. part 1 builds a grid
+ * that part 2 reuses) will quietly break under those rules.
+ *
+ * This class spots such solvers: it fingerprints the instance fields of a day
+ * before a solve, and reports any that changed by the end of it.
+ *
+ * Static fields are the opposite problem: they are the one place both parts do share,
+ * at the same time, so a static memo or grid that a part changes is a race. Those are
+ * fingerprinted too: the non-final ones, and final ones that hold an array, collection
+ * or map (whose contents can still change).
+ */
+class SharedState
+{
+    /**
+     * Fingerprint every instance field declared by the day's own classes
+     * (i.e. below ADay), and every static field that could change.
+     */
+    static Map<Field, Integer> snapshot(ADay day)
+    {
+        Map<Field, Integer> prints = new LinkedHashMap<Field, Integer>();
+        for (Class<?> c = day.getClass(); c != null && c != ADay.class; c = c.getSuperclass())
+        {
+            for (Field field : c.getDeclaredFields())
+            {
+                if (field.isSynthetic() || isStatic(field) && !mayChange(field))
+                    continue;
+                try
+                {
+                    field.setAccessible(true);
+                    prints.put(field, fingerprint(field.get(day)));
+                }
+                catch (RuntimeException | IllegalAccessException ex)
+                {
+                    // Can't see it, so can't check it
+                }
+            }
+        }
+        return prints;
+    }
+
+    static boolean isStatic(Field field)
+    {
+        return Modifier.isStatic(field.getModifiers());
+    }
+
+    /**
+     * A final static can only change if it holds something mutable
+     */
+    private static boolean mayChange(Field field)
+    {
+        if (!Modifier.isFinal(field.getModifiers()))
+            return true;
+        Class<?> type = field.getType();
+        return type.isArray() || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type);
+    }
+
+    /**
+     * Compare the day's fields against an earlier snapshot.
+     *
+     * @return each field that changed
+     */
+    static List<Field> changed(ADay day, Map<Field, Integer> before)
+    {
+        List<Field> changes = new ArrayList<Field>();
+        for (Map.Entry<Field, Integer> entry : before.entrySet())
+        {
+            Field field = entry.getKey();
+            try
+            {
+                if (fingerprint(field.get(day)) != entry.getValue())
+                    changes.add(field);
+            }
+            catch (RuntimeException | IllegalAccessException ex)
+            {
+                // Couldn't read it the second time; ignore it
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * A cheap summary of a value. Arrays and collections are fingerprinted by
+     * their contents; any other object just by its identity.
+     */
+    static int fingerprint(Object value)
+    {
+        if (value == null)
+            return 0;
+        if (value.getClass().isArray())
+            return Arrays.deepHashCode(new Object[] { value });
+        if (value instanceof Number || value instanceof CharSequence || value instanceof Character
+                || value instanceof Boolean || value instanceof Collection || value instanceof Map)
+        {
+            try
+            {
+                return value.hashCode();
+            }
+            catch (RuntimeException ex)
+            {
+                // e.g. a collection that contains itself
+            }
+        }
+        return System.identityHashCode(value);
+    }
+}
@@ -0,0 +1,29 @@
+package AoC;
+
+import java.io.File;
+
+/**
+ * Where JAdvent keeps its local files (cached answers and the like).
+ * Defaults to a .jadvent folder in the user's home directory;
+ * run with -Djadvent.dir=... to put it somewhere else.
+ */
+public class Storage
+{
+    public static File root()
+    {
+        String dir = System.getProperty("jadvent.dir");
+        if (dir == null)
+            return new File(System.getProperty("user.home"), ".jadvent");
+        return new File(dir);
+    }
+
+    /**
+     * A named folder under the root, created on demand
+     */
+    public static File dir(String name)
+    {
+        File dir = new File(root(), name);
+        dir.mkdirs();
+        return dir;
+    }
+}
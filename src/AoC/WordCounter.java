@@ -0,0 +1,304 @@
+package AoC;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.ObjLongConsumer;
+
+import AoC.collections.Hashing;
+
+/**
+ * Counts words straight out of a Reader's buffer. Each word is hashed and compared
+ * where it lies, so only the first occurrence of each distinct word becomes a String;
+ * the rest cost no allocation at all.
+ *
+ *   WordCounter words = new WordCounter();
+ *   words.addAll(input);            // every whitespace-separated word
+ *   return words.argMax();
+ *
+ * or count a piece of text you've found yourself:
+ *   int start = input.position();
+ *   input.scanNonSpace();
+ *   words.add(input, start, input.position());
+ *
+ * For big inputs, countParallel() splits the text into line ranges, counts each
+ * range on its own thread, and merges the counts.
+ * A WordCounter is not thread-safe; each thread should count into its own.
+ */
+public class WordCounter
+{
+    private String[] _keys;
+    /** Each key's hash, as String.hashCode() (which the String caches), to skip most comparisons */
+    private int[] _hashes;
+    private long[] _counts;
+    private int _mask;
+    private int _limit;
+    private int _size;
+
+    public WordCounter()
+    {
+        allocate(1024);
+    }
+
+    private void allocate(int capacity)
+    {
+        _keys = new String[capacity];
+        _hashes = new int[capacity];
+        _counts = new long[capacity];
+        _mask = capacity - 1;
+        _limit = capacity / 2;
+    }
+
+    /**
+     * How many distinct words have been counted
+     */
+    public int size()
+    {
+        return _size;
+    }
+
+    /**
+     * Count the text from start to end (exclusive) of the reader's buffer as one word.
+     * Positions are the reader's own, as returned by position().
+     *
+     * @return the word's new count
+     */
+    public long add(Reader reader, int start, int end)
+    {
+        if (start < reader.startPosition() || end > reader.endPosition() || start > end)
+            throw new IndexOutOfBoundsException("[" + start + ", " + end + ") is not within the reader");
+        return add(reader.buffer(), start, end, 1);
+    }
+
+    /**
+     * Count every whitespace-separated word from the reader's position to its end,
+     * leaving the reader at its end.
+     *
+     * @return how many words were counted
+     */
+    public long addAll(Reader reader)
+    {
+        long words = addAll(reader.buffer(), reader.position(), reader.endPosition());
+        reader.setPosition(reader.endPosition());
+        return words;
+    }
+
+    private long addAll(char[] chars, int pos, int end)
+    {
+        long words = 0;
+        while (pos < end)
+        {
+            while (pos < end && Character.isWhitespace(chars[pos]))
+                pos++;
+            int start = pos;
+            while (pos < end && !Character.isWhitespace(chars[pos]))
+                pos++;
+            if (pos > start)
+            {
+                add(chars, start, pos, 1);
+                words++;
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Add to a word's count
+     *
+     * @return the word's new count
+     */
+    public long add(String word, long delta)
+    {
+        int hash = word.hashCode();
+        int slot = Hashing.mix(hash) & _mask;
+        while (_keys[slot] != null)
+        {
+            if (_hashes[slot] == hash && _keys[slot].equals(word))
+                return _counts[slot] += delta;
+            slot = (slot + 1) & _mask;
+        }
+        insert(slot, word, hash, delta);
+        return delta;
+    }
+
+    private long add(char[] chars, int start, int end, long delta)
+    {
+        // The same hash as new String(chars, start, end - start).hashCode()
+        int hash = 0;
+        for (int i = start; i < end; i++)
+            hash = 31 * hash + chars[i];
+
+        int slot = Hashing.mix(hash) & _mask;
+        while (_keys[slot] != null)
+        {
+            if (_hashes[slot] == hash && matches(_keys[slot], chars, start, end))
+                return _counts[slot] += delta;
+            slot = (slot + 1) & _mask;
+        }
+        // First time for this word: only now does it become a String
+        insert(slot, new String(chars, start, end - start), hash, delta);
+        return delta;
+    }
+
+    private static boolean matches(String key, char[] chars, int start, int end)
+    {
+        if (key.length() != end - start)
+            return false;
+        for (int i = start; i < end; i++)
+        {
+            if (key.charAt(i - start) != chars[i])
+                return false;
+        }
+        return true;
+    }
+
+    private void insert(int slot, String word, int hash, long count)
+    {
+        _keys[slot] = word;
+        _hashes[slot] = hash;
+        _counts[slot] = count;
+        if (++_size > _limit)
+            rehash();
+    }
+
+    private void rehash()
+    {
+        String[] keys = _keys;
+        int[] hashes = _hashes;
+        long[] counts = _counts;
+        allocate(keys.length * 2);
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (keys[i] == null)
+                continue;
+            int slot = Hashing.mix(hashes[i]) & _mask;
+            while (_keys[slot] != null)
+                slot = (slot + 1) & _mask;
+            _keys[slot] = keys[i];
+            _hashes[slot] = hashes[i];
+            _counts[slot] = counts[i];
+        }
+    }
+
+    /**
+     * A word's count, or 0 if it hasn't been seen
+     */
+    public long get(String word)
+    {
+        int hash = word.hashCode();
+        for (int slot = Hashing.mix(hash) & _mask; _keys[slot] != null; slot = (slot + 1) & _mask)
+        {
+            if (_hashes[slot] == hash && _keys[slot].equals(word))
+                return _counts[slot];
+        }
+        return 0;
+    }
+
+    /**
+     * The most common word, or null if nothing was counted.
+     * If several words share the highest count, any one of them.
+     */
+    public String argMax()
+    {
+        String best = null;
+        long most = Long.MIN_VALUE;
+        for (int i = 0; i < _keys.length; i++)
+        {
+            if (_keys[i] != null && _counts[i] > most)
+            {
+                best = _keys[i];
+                most = _counts[i];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Visit every word and its count, in no particular order
+     */
+    public void forEach(ObjLongConsumer<String> consumer)
+    {
+        for (int i = 0; i < _keys.length; i++)
+        {
+            if (_keys[i] != null)
+                consumer.accept(_keys[i], _counts[i]);
+        }
+    }
+
+    /**
+     * Add another counter's counts to this one
+     */
+    public void merge(WordCounter other)
+    {
+        other.forEach(this::add);
+    }
+
+    public void clear()
+    {
+        Arrays.fill(_keys, null);
+        _size = 0;
+    }
+
+    /**
+     * Count every whitespace-separated word from the reader's position to its end,
+     * splitting the text into about as many line ranges as there are processors,
+     * and counting them in parallel. Leaves the reader at its end.
+     */
+    public static WordCounter countParallel(Reader reader)
+    {
+        return countParallel(reader, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Count every word as above, in (up to) the given number of line ranges
+     */
+    public static WordCounter countParallel(Reader reader, int shards)
+    {
+        char[] chars = reader.buffer();
+        int start = reader.position();
+        int end = reader.endPosition();
+        shards = Math.max(1, Math.min(shards, (end - start) / 4096 + 1));  // tiny inputs aren't worth splitting
+
+        // Cut at the first line break after each even split, so no word is cut in two
+        List<CompletableFuture<WordCounter>> counts = new ArrayList<CompletableFuture<WordCounter>>(shards);
+        int from = start;
+        for (int i = 0; i < shards; i++)
+        {
+            int to = i == shards - 1 ? end : Math.max(from, start + (int)((long)(end - start) * (i + 1) / shards));
+            while (to < end && chars[to] != '\n')
+                to++;
+            int rangeStart = from, rangeEnd = to;
+            counts.add(CompletableFuture.supplyAsync(() -> {
+                WordCounter counter = new WordCounter();
+                counter.addAll(chars, rangeStart, rangeEnd);
+                return counter;
+            }));
+            from = to;
+        }
+
+        // Merge into the biggest, to re-hash as few words as possible
+        WordCounter[] done = new WordCounter[shards];
+        int biggest = 0;
+        for (int i = 0; i < shards; i++)
+        {
+            done[i] = counts.get(i).join();
+            if (done[i].size() > done[biggest].size())
+                biggest = i;
+        }
+        for (int i = 0; i < shards; i++)
+        {
+            if (i != biggest)
+                done[biggest].merge(done[i]);
+        }
+        reader.setPosition(end);
+        return done[biggest];
+    }
+
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("{");
+        forEach((word, count) -> builder.append(builder.length() > 1 ? ", " : "").append(word).append('=').append(count));
+        return builder.append('}').toString();
+    }
+}
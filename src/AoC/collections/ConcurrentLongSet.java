@@ -0,0 +1,94 @@
+package AoC.collections;
+
+/**
+ * A set of longs that many threads can add to at once, e.g. the visited states of
+ * a parallel search.
+ *
+ * It is striped: the keys are spread over many LongSets by a hash of their own,
+ * each guarded by its own lock. Two threads only wait for each other when they
+ * touch the same stripe at the same moment, and with several stripes per processor
+ * that is rare. Each stripe grows on its own, so the set never stops the world to grow.
+ */
+public class ConcurrentLongSet
+{
+    private final LongSet[] _stripes;
+
+    public ConcurrentLongSet()
+    {
+        this(1024);
+    }
+
+    /**
+     * @param expected how many keys to make room for up front
+     */
+    public ConcurrentLongSet(int expected)
+    {
+        int stripes = Hashing.stripes();
+        _stripes = new LongSet[stripes];
+        for (int i = 0; i < stripes; i++)
+            _stripes[i] = new LongSet(expected / stripes + 1);
+    }
+
+    private LongSet stripe(long key)
+    {
+        return _stripes[Hashing.stripe(key, _stripes.length)];
+    }
+
+    /**
+     * @return true if the value was added, false if it was already there
+     *         (so of several threads adding the same value, exactly one gets true)
+     */
+    public boolean add(long key)
+    {
+        LongSet stripe = stripe(key);
+        synchronized (stripe)
+        {
+            return stripe.add(key);
+        }
+    }
+
+    public boolean contains(long key)
+    {
+        LongSet stripe = stripe(key);
+        synchronized (stripe)
+        {
+            return stripe.contains(key);
+        }
+    }
+
+    public boolean remove(long key)
+    {
+        LongSet stripe = stripe(key);
+        synchronized (stripe)
+        {
+            return stripe.remove(key);
+        }
+    }
+
+    /**
+     * The number of keys; only exact if nothing is being added meanwhile
+     */
+    public long size()
+    {
+        long size = 0;
+        for (LongSet stripe : _stripes)
+        {
+            synchronized (stripe)
+            {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear()
+    {
+        for (LongSet stripe : _stripes)
+        {
+            synchronized (stripe)
+            {
+                stripe.clear();
+            }
+        }
+    }
+}
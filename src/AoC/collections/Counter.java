@@ -0,0 +1,154 @@
+package AoC.collections;
+
+import java.util.Arrays;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Counts things, e.g. how often each word appears. The counts are plain longs
+ * in an open-addressing table, so counting never boxes, and an update is a
+ * single lookup (where HashMap&lt;String, Integer&gt; needs get, put and a new Integer).
+ *
+ *   Counter&lt;String&gt; words = new Counter&lt;String&gt;();
+ *   words.increment(word, 1);
+ *   String most = words.argMax();
+ *
+ * For int or long keys, use IntIntMap.addTo() or LongLongMap.addTo() instead.
+ * Not thread-safe.
+ */
+public class Counter<K>
+{
+    private Object[] _keys;
+    private long[] _counts;
+    private int _mask;
+    private int _limit;
+    private int _size;
+
+    public Counter()
+    {
+        this(16);
+    }
+
+    /**
+     * @param expected how many distinct keys to make room for up front
+     */
+    public Counter(int expected)
+    {
+        allocate(Hashing.capacity(expected));
+    }
+
+    private void allocate(int capacity)
+    {
+        _keys = new Object[capacity];
+        _counts = new long[capacity];
+        _mask = capacity - 1;
+        _limit = Hashing.limit(capacity);
+    }
+
+    /**
+     * How many distinct keys have been counted
+     */
+    public int size()
+    {
+        return _size;
+    }
+
+    private int slot(Object key)
+    {
+        int slot = Hashing.mix(key) & _mask;
+        while (_keys[slot] != null && !_keys[slot].equals(key))
+            slot = (slot + 1) & _mask;
+        return slot;
+    }
+
+    /**
+     * Add to a key's count (which starts at 0)
+     *
+     * @return the new count
+     */
+    public long increment(K key, long delta)
+    {
+        if (key == null)
+            throw new NullPointerException("Counter keys can't be null");
+        int slot = slot(key);
+        if (_keys[slot] != null)
+            return _counts[slot] += delta;
+        _keys[slot] = key;
+        _counts[slot] = delta;
+        if (++_size > _limit)
+            rehash(_keys.length * 2);
+        return delta;
+    }
+
+    /**
+     * The key's count, or 0 if it hasn't been counted
+     */
+    public long get(K key)
+    {
+        if (key == null)
+            return 0;
+        int slot = slot(key);
+        return _keys[slot] != null ? _counts[slot] : 0;
+    }
+
+    /**
+     * The key with the highest count, or null if nothing was counted.
+     * If several keys share the highest count, any one of them.
+     */
+    @SuppressWarnings("unchecked")
+    public K argMax()
+    {
+        Object best = null;
+        long most = Long.MIN_VALUE;
+        for (int i = 0; i < _keys.length; i++)
+        {
+            if (_keys[i] != null && _counts[i] > most)
+            {
+                best = _keys[i];
+                most = _counts[i];
+            }
+        }
+        return (K)best;
+    }
+
+    /**
+     * Visit every key and its count, in no particular order
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjLongConsumer<K> consumer)
+    {
+        for (int i = 0; i < _keys.length; i++)
+        {
+            if (_keys[i] != null)
+                consumer.accept((K)_keys[i], _counts[i]);
+        }
+    }
+
+    public void clear()
+    {
+        Arrays.fill(_keys, null);
+        _size = 0;
+    }
+
+    private void rehash(int capacity)
+    {
+        Object[] keys = _keys;
+        long[] counts = _counts;
+        allocate(capacity);
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (keys[i] != null)
+            {
+                int slot = slot(keys[i]);
+                _keys[slot] = keys[i];
+                _counts[slot] = counts[i];
+            }
+        }
+    }
+
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("{");
+        forEach((key, count) -> builder.append(builder.length() > 1 ? ", " : "").append(key).append('=').append(count));
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,79 @@
+package AoC.collections;
+
+/**
+ * Hash mixing and table sizing shared by the open-addressing collections.
+ *
+ * Keys from puzzles are rarely random (coordinates, counters, packed states),
+ * so they are mixed before being masked down to a slot; otherwise runs of
+ * consecutive keys would pile up in consecutive slots.
+ *
+ * The mix functions are public, so that tables outside this package (WordCounter)
+ * spread their keys the same way.
+ */
+public final class Hashing
+{
+    private Hashing()
+    {
+    }
+
+    /**
+     * Tables are at most this full before they grow
+     */
+    static final float LOAD_FACTOR = 0.6f;
+
+    public static int mix(int key)
+    {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    public static int mix(long key)
+    {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int)(h ^ (h >>> 16));
+    }
+
+    public static int mix(Object key)
+    {
+        return mix(key.hashCode());
+    }
+
+    /**
+     * How many stripes a concurrent table is split into (see ConcurrentLongSet):
+     * several per processor, so that two threads rarely want the same stripe at once
+     */
+    static int stripes()
+    {
+        return Math.max(16, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 8 - 1) << 1);
+    }
+
+    /**
+     * Which of the stripes (a power of 2) a key belongs to. It is picked by a different
+     * hash than mix(), which the table uses within the stripe, so that each stripe's
+     * keys are still spread over its whole table.
+     */
+    static int stripe(long key, int stripes)
+    {
+        return (int)((key * 0xC2B2AE3D27D4EB4FL) >>> (64 - Integer.numberOfTrailingZeros(stripes)));
+    }
+
+    /**
+     * The table size (a power of 2) for a number of entries
+     */
+    static int capacity(int expected)
+    {
+        long needed = (long)Math.ceil(Math.max(expected, 2) / LOAD_FACTOR);
+        if (needed > 1 << 30)
+            throw new IllegalArgumentException("Too many entries: " + expected);
+        return Integer.highestOneBit((int)needed - 1) << 1;
+    }
+
+    /**
+     * How many entries a table of this size may hold
+     */
+    static int limit(int capacity)
+    {
+        return Math.min(capacity - 1, (int)(capacity * LOAD_FACTOR));
+    }
+}
@@ -0,0 +1,250 @@
+package AoC.collections;
+
+import java.util.Arrays;
+
+/**
+ * A map from int to int, without boxing: the keys and values live in two plain
+ * arrays, and a lookup is a hash and a short linear probe.
+ *
+ * Use it in place of HashMap&lt;Integer, Integer&gt; for solver state, e.g. counts:
+ *   IntIntMap counts = new IntIntMap();
+ *   counts.addTo(key, 1);
+ *
+ * Missing keys read as the map's default value (0, unless given).
+ * Not thread-safe.
+ */
+public class IntIntMap
+{
+    /** Marks an empty slot. Key 0 itself is kept aside, in _zeroValue. */
+    private static final int FREE = 0;
+
+    private int[] _keys;
+    private int[] _values;
+    private int _mask;
+    private int _limit;
+    private int _size;
+    private boolean _hasZero;
+    private int _zeroValue;
+    private final int _default;
+
+    public IntIntMap()
+    {
+        this(16, 0);
+    }
+
+    /**
+     * @param expected how many keys to make room for up front
+     * @param defaultValue what get() returns for a missing key
+     */
+    public IntIntMap(int expected, int defaultValue)
+    {
+        _default = defaultValue;
+        allocate(Hashing.capacity(expected));
+    }
+
+    private void allocate(int capacity)
+    {
+        _keys = new int[capacity];
+        _values = new int[capacity];
+        _mask = capacity - 1;
+        _limit = Hashing.limit(capacity);
+    }
+
+    public int size()
+    {
+        return _size;
+    }
+
+    public boolean isEmpty()
+    {
+        return _size == 0;
+    }
+
+    /**
+     * The slot holding a key, or the free slot where it would go
+     */
+    private int slot(int key)
+    {
+        int slot = Hashing.mix(key) & _mask;
+        while (_keys[slot] != FREE && _keys[slot] != key)
+            slot = (slot + 1) & _mask;
+        return slot;
+    }
+
+    public boolean containsKey(int key)
+    {
+        if (key == FREE)
+            return _hasZero;
+        return _keys[slot(key)] == key;
+    }
+
+    /**
+     * The value for a key, or the default value if it's missing
+     */
+    public int get(int key)
+    {
+        return getOrDefault(key, _default);
+    }
+
+    public int getOrDefault(int key, int missing)
+    {
+        if (key == FREE)
+            return _hasZero ? _zeroValue : missing;
+        int slot = slot(key);
+        return _keys[slot] == key ? _values[slot] : missing;
+    }
+
+    /**
+     * @return the previous value, or the default value if there wasn't one
+     */
+    public int put(int key, int value)
+    {
+        if (key == FREE)
+        {
+            int previous = _hasZero ? _zeroValue : _default;
+            if (!_hasZero)
+                _size++;
+            _hasZero = true;
+            _zeroValue = value;
+            return previous;
+        }
+        int slot = slot(key);
+        if (_keys[slot] == key)
+        {
+            int previous = _values[slot];
+            _values[slot] = value;
+            return previous;
+        }
+        insert(slot, key, value);
+        return _default;
+    }
+
+    /**
+     * Add to a key's value (starting from the default value, if it's missing)
+     *
+     * @return the new value
+     */
+    public int addTo(int key, int delta)
+    {
+        if (key == FREE)
+        {
+            int value = (_hasZero ? _zeroValue : _default) + delta;
+            put(key, value);
+            return value;
+        }
+        int slot = slot(key);
+        if (_keys[slot] == key)
+            return _values[slot] += delta;
+        insert(slot, key, _default + delta);
+        return _default + delta;
+    }
+
+    private void insert(int slot, int key, int value)
+    {
+        _keys[slot] = key;
+        _values[slot] = value;
+        if (++_size > _limit)
+            rehash(_keys.length * 2);
+    }
+
+    /**
+     * @return the value that was removed, or the default value if the key was missing
+     */
+    public int remove(int key)
+    {
+        if (key == FREE)
+        {
+            if (!_hasZero)
+                return _default;
+            _hasZero = false;
+            _size--;
+            return _zeroValue;
+        }
+        int slot = slot(key);
+        if (_keys[slot] != key)
+            return _default;
+        int previous = _values[slot];
+        _size--;
+
+        // Shift later entries of the same probe run back, so no lookup stops short at the hole
+        int gap = slot;
+        for (int i = (slot + 1) & _mask; _keys[i] != FREE; i = (i + 1) & _mask)
+        {
+            int home = Hashing.mix(_keys[i]) & _mask;
+            if (((i - home) & _mask) >= ((i - gap) & _mask))
+            {
+                _keys[gap] = _keys[i];
+                _values[gap] = _values[i];
+                gap = i;
+            }
+        }
+        _keys[gap] = FREE;
+        return previous;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(_keys, FREE);
+        _hasZero = false;
+        _size = 0;
+    }
+
+    private void rehash(int capacity)
+    {
+        int[] keys = _keys;
+        int[] values = _values;
+        allocate(capacity);
+        for (int i = 0; i < keys.length; i++)
+        {
+            if (keys[i] != FREE)
+            {
+                int slot = slot(keys[i]);
+                _keys[slot] = keys[i];
+                _values[slot] = values[i];
+            }
+        }
+    }
+
+    public interface EntryConsumer
+    {
+        void accept(int key, int value);
+    }
+
+    /**
+     * Visit every entry, in no particular order
+     */
+    public void forEach(EntryConsumer consumer)
+    {
+        if (_hasZero)
+            consumer.accept(FREE, _zeroValue);
+        for (int i = 0; i < _keys.length; i++)
+        {
+            if (_keys[i] != FREE)
+                consumer.accept(_keys[i], _values[i]);
+        }
+    }
+
+    /**
+     * The keys, in no particular order
+     */
+    public int[] keys()
+    {
+        int[] keys = new int[_size];
+        int n = 0;
+        if (_hasZero)
+            keys[n++] = FREE;
+        for (int key : _keys)
+        {
+            if (key != FREE)
+                keys[n++] = key;
+        }
+        return keys;
+    }
+
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder("{");
+        forEach((key, value) -> builder.append(builder.length() > 1 ? ", " : "").append(key).append('=').append(value));
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,109 @@
+package AoC.collections;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of ints, without boxing. Use it in place of ArrayList&lt;Integer&gt;,
+ * and as a stack (push/pop). Not thread-safe.
+ */
+public class IntList
+{
+    private int[] _values;
+    private int _size;
+
+    public IntList()
+    {
+        this(16);
+    }
+
+    public IntList(int capacity)
+    {
+        _values = new int[Math.max(capacity, 1)];
+    }
+
+    public int size()
+    {
+        return _size;
+    }
+
+    public boolean isEmpty()
+    {
+        return _size == 0;
+    }
+
+    public void add(int value)
+    {
+        if (_size == _values.length)
+            _values = Arrays.copyOf(_values, _values.length * 2);
+        _values[_size++] = value;
+    }
+
+    public void addAll(int... values)
+    {
+        for (int value : values)
+            add(value);
+    }
+
+    public int get(int index)
+    {
+        check(index);
+        return _values[index];
+    }
+
+    public void set(int index, int value)
+    {
+        check(index);
+        _values[index] = value;
+    }
+
+    public void push(int value)
+    {
+        add(value);
+    }
+
+    /**
+     * Remove and return the last value
+     */
+    public int pop()
+    {
+        if (_size == 0)
+            throw new IllegalStateException("The list is empty");
+        return _values[--_size];
+    }
+
+    /**
+     * The last value, without removing it
+     */
+    public int peek()
+    {
+        if (_size == 0)
+            throw new IllegalStateException("The list is empty");
+        return _values[_size - 1];
+    }
+
+    public void clear()
+    {
+        _size = 0;
+    }
+
+    public void sort()
+    {
+        Arrays.sort(_values, 0, _size);
+    }
+
+    public int[] toArray()
+    {
+        return Arrays.copyOf(_values, _size);
+    }
+
+    private void check(int index)
+    {
+        if (index < 0 || index >= _size)
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + _size);
+    }
+
+    public String toString()
+    {
+        return Arrays.toString(toArray());
+    }
+}
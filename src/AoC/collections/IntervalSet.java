@@ -0,0 +1,457 @@
+package AoC.collections;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import AoC.Reader;
+
+/**
+ * A set of longs held as ranges, e.g. the blocked IP addresses of a blacklist, or the
+ * columns a row of sensors can see: however many values a range spans, it costs two longs.
+ *
+ * Ranges are inclusive at both ends, and kept sorted, apart and coalesced: adding 5-8 to
+ * 1-4 and 9-12 leaves just 1-12. Finding where a range goes is a binary search; making
+ * room for it shifts the ranges after it along the arrays.
+ *
+ *   IntervalSet blocked = IntervalSet.parse(input);      // lines like "5-8"
+ *   long lowest = blocked.firstGap(0);
+ *   long allowed = blocked.complement(0, 4294967295L).totalLength();
+ *
+ * add() and remove() change the set; union(), intersection(), difference() and
+ * complement() make new ones, in time linear in the number of ranges.
+ * Not thread-safe.
+ */
+public class IntervalSet
+{
+    private long[] _starts;
+    private long[] _ends;
+    private int _size;
+
+    public IntervalSet()
+    {
+        this(16);
+    }
+
+    public IntervalSet(int capacity)
+    {
+        _starts = new long[Math.max(capacity, 2)];
+        _ends = new long[_starts.length];
+    }
+
+    /**
+     * A set of the ranges on the reader's lines, each like "5-8" (blank lines are skipped)
+     */
+    public static IntervalSet parse(Reader input)
+    {
+        return parse(input, "-");
+    }
+
+    /**
+     * A set of the ranges on the reader's lines, each a start, the separator (e.g. ".."),
+     * and an end
+     */
+    public static IntervalSet parse(Reader input, String separator)
+    {
+        IntervalSet set = new IntervalSet();
+        for (Reader line : input.lines())
+        {
+            line.scanSpaces();
+            if (line.position() == line.endPosition())
+                continue;
+            long start = line.expectLong();
+            line.expect(separator);
+            set.add(start, line.expectLong());
+        }
+        return set;
+    }
+
+    /**
+     * How many separate ranges there are
+     */
+    public int size()
+    {
+        return _size;
+    }
+
+    public boolean isEmpty()
+    {
+        return _size == 0;
+    }
+
+    /**
+     * The first value of the index'th range, in order
+     */
+    public long start(int index)
+    {
+        checkIndex(index);
+        return _starts[index];
+    }
+
+    /**
+     * The last value of the index'th range, in order
+     */
+    public long end(int index)
+    {
+        checkIndex(index);
+        return _ends[index];
+    }
+
+    private void checkIndex(int index)
+    {
+        if (index < 0 || index >= _size)
+            throw new IndexOutOfBoundsException("Range " + index + " of " + _size);
+    }
+
+    /**
+     * The least value in the set
+     */
+    public long min()
+    {
+        if (_size == 0)
+            throw new NoSuchElementException("The set is empty");
+        return _starts[0];
+    }
+
+    /**
+     * The greatest value in the set
+     */
+    public long max()
+    {
+        if (_size == 0)
+            throw new NoSuchElementException("The set is empty");
+        return _ends[_size - 1];
+    }
+
+    /**
+     * The index of the first range whose values in sorted are at least value (or _size)
+     */
+    private int firstAtLeast(long[] sorted, long value)
+    {
+        int low = 0, high = _size;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * The index of the first range whose values in sorted are more than value (or _size)
+     */
+    private int firstAfter(long[] sorted, long value)
+    {
+        int low = 0, high = _size;
+        while (low < high)
+        {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] <= value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Does a range ending at end touch or overlap one starting at start (with start >= the other's start)?
+     * Written so that neither Long.MIN_VALUE nor Long.MAX_VALUE overflows.
+     */
+    private static boolean touches(long end, long start)
+    {
+        return start <= end || start - 1 == end;
+    }
+
+    public boolean contains(long value)
+    {
+        int i = firstAtLeast(_ends, value);
+        return i < _size && _starts[i] <= value;
+    }
+
+    /**
+     * Is every value from start to end (inclusive) in the set?
+     */
+    public boolean containsAll(long start, long end)
+    {
+        int i = firstAtLeast(_ends, end);
+        return i < _size && _starts[i] <= start;
+    }
+
+    public void add(long value)
+    {
+        add(value, value);
+    }
+
+    /**
+     * Add the values from start to end, inclusive, merging with any ranges they touch
+     */
+    public void add(long start, long end)
+    {
+        if (start > end)
+            throw new IllegalArgumentException("A range can't end (" + end + ") before it starts (" + start + ")");
+
+        // The ranges from i to j - 1 overlap or touch the new one
+        int i = firstAtLeast(_ends, start);
+        if (i > 0 && touches(_ends[i - 1], start))
+            i--;
+        int j = Math.max(i, firstAfter(_starts, end));
+        if (j < _size && touches(end, _starts[j]))
+            j++;
+        if (j == i)
+        {
+            insert(i, start, end);
+            return;
+        }
+        _starts[i] = Math.min(start, _starts[i]);
+        _ends[i] = Math.max(end, _ends[j - 1]);
+        delete(i + 1, j);
+    }
+
+    /**
+     * Remove the values from start to end, inclusive, splitting a range if need be
+     */
+    public void remove(long start, long end)
+    {
+        if (start > end)
+            throw new IllegalArgumentException("A range can't end (" + end + ") before it starts (" + start + ")");
+        int i = firstAtLeast(_ends, start);
+        int j = Math.max(i, firstAfter(_starts, end));
+        if (i == j)
+            return;
+
+        // What's left of the first and last overlapping ranges
+        boolean keepHead = _starts[i] < start, keepTail = _ends[j - 1] > end;
+        long headStart = _starts[i], tailEnd = _ends[j - 1];
+        delete(i, j);
+        if (keepTail)
+            insert(i, end + 1, tailEnd);
+        if (keepHead)
+            insert(i, headStart, start - 1);
+    }
+
+    private void insert(int index, long start, long end)
+    {
+        if (_size == _starts.length)
+        {
+            _starts = Arrays.copyOf(_starts, _size * 2);
+            _ends = Arrays.copyOf(_ends, _size * 2);
+        }
+        System.arraycopy(_starts, index, _starts, index + 1, _size - index);
+        System.arraycopy(_ends, index, _ends, index + 1, _size - index);
+        _starts[index] = start;
+        _ends[index] = end;
+        _size++;
+    }
+
+    /**
+     * Delete the ranges from index from to index to - 1
+     */
+    private void delete(int from, int to)
+    {
+        System.arraycopy(_starts, to, _starts, from, _size - to);
+        System.arraycopy(_ends, to, _ends, from, _size - to);
+        _size -= to - from;
+    }
+
+    /**
+     * Add a range after every other, for building a set in order
+     */
+    private void append(long start, long end)
+    {
+        if (_size > 0 && touches(_ends[_size - 1], start))
+            _ends[_size - 1] = Math.max(_ends[_size - 1], end);
+        else
+            insert(_size, start, end);
+    }
+
+    public void clear()
+    {
+        _size = 0;
+    }
+
+    public IntervalSet copy()
+    {
+        IntervalSet copy = new IntervalSet(_size);
+        System.arraycopy(_starts, 0, copy._starts, 0, _size);
+        System.arraycopy(_ends, 0, copy._ends, 0, _size);
+        copy._size = _size;
+        return copy;
+    }
+
+    /**
+     * The values in either set
+     */
+    public IntervalSet union(IntervalSet other)
+    {
+        IntervalSet union = new IntervalSet(_size + other._size);
+        int i = 0, j = 0;
+        while (i < _size || j < other._size)
+        {
+            if (j == other._size || i < _size && _starts[i] <= other._starts[j])
+            {
+                union.append(_starts[i], _ends[i]);
+                i++;
+            }
+            else
+            {
+                union.append(other._starts[j], other._ends[j]);
+                j++;
+            }
+        }
+        return union;
+    }
+
+    /**
+     * The values in both sets
+     */
+    public IntervalSet intersection(IntervalSet other)
+    {
+        IntervalSet intersection = new IntervalSet(Math.max(_size, other._size));
+        int i = 0, j = 0;
+        while (i < _size && j < other._size)
+        {
+            long start = Math.max(_starts[i], other._starts[j]);
+            long end = Math.min(_ends[i], other._ends[j]);
+            if (start <= end)
+                intersection.append(start, end);
+            // Move past whichever range ends first
+            if (_ends[i] < other._ends[j])
+                i++;
+            else
+                j++;
+        }
+        return intersection;
+    }
+
+    /**
+     * The values in this set, but not in the other
+     */
+    public IntervalSet difference(IntervalSet other)
+    {
+        IntervalSet difference = new IntervalSet(_size);
+        int j = 0;
+        for (int i = 0; i < _size; i++)
+        {
+            long start = _starts[i], end = _ends[i];
+            // Skip the other's ranges that end before this one starts
+            while (j < other._size && other._ends[j] < start)
+                j++;
+            // Cut out each of the other's ranges that overlap this one
+            int k = j;
+            boolean left = true;
+            while (k < other._size && other._starts[k] <= end)
+            {
+                if (other._starts[k] > start)
+                    difference.append(start, other._starts[k] - 1);
+                if (other._ends[k] >= end)
+                {
+                    left = false;
+                    break;
+                }
+                start = other._ends[k] + 1;
+                k++;
+            }
+            if (left)
+                difference.append(start, end);
+        }
+        return difference;
+    }
+
+    /**
+     * The values from low to high (inclusive) that are not in the set
+     */
+    public IntervalSet complement(long low, long high)
+    {
+        if (low > high)
+            throw new IllegalArgumentException("The bounds are backwards: " + low + " to " + high);
+        IntervalSet bounds = new IntervalSet(1);
+        bounds.append(low, high);
+        return bounds.difference(this);
+    }
+
+    /**
+     * How many values the set holds (which overflows only if it spans nearly all longs)
+     */
+    public long totalLength()
+    {
+        long length = 0;
+        for (int i = 0; i < _size; i++)
+            length += _ends[i] - _starts[i] + 1;
+        return length;
+    }
+
+    /**
+     * The least value, from a given value up, that is not in the set
+     *
+     * @throws NoSuchElementException if every value from there up is in the set
+     */
+    public long firstGap(long from)
+    {
+        int i = firstAtLeast(_ends, from);
+        if (i == _size || _starts[i] > from)
+            return from;
+        // Ranges are coalesced, so the value after this one's end is free
+        if (_ends[i] == Long.MAX_VALUE)
+            throw new NoSuchElementException("Every value from " + from + " up is in the set");
+        return _ends[i] + 1;
+    }
+
+    public interface RangeConsumer
+    {
+        void accept(long start, long end);
+    }
+
+    /**
+     * Visit every range, in order
+     */
+    public void forEach(RangeConsumer consumer)
+    {
+        for (int i = 0; i < _size; i++)
+            consumer.accept(_starts[i], _ends[i]);
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        if (!(other instanceof IntervalSet))
+            return false;
+        IntervalSet that = (IntervalSet)other;
+        if (that._size != _size)
+            return false;
+        for (int i = 0; i < _size; i++)
+        {
+            if (_starts[i] != that._starts[i] || _ends[i] != that._ends[i])
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int hash = _size;
+        for (int i = 0; i < _size; i++)
+            hash = hash * 31 + Long.hashCode(_starts[i]) * 17 + Long.hashCode(_ends[i]);
+        return hash;
+    }
+
+    /**
+     * For example "[1-4, 9, 12-20]"
+     */
+    public String toString()
+    {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < _size; i++)
+        {
+            if (i > 0)
+                text.append(", ");
+            text.append(_starts[i]);
+            if (_ends[i] != _starts[i])
+                text.append('-').append(_ends[i]);
+        }
+        return text.append(']').toString();
+    }
+}
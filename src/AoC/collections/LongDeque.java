@@ -0,0 +1,91 @@
+package AoC.collections;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A double-ended queue of longs, without boxing: a growable ring buffer.
+ * Use it as the queue of a breadth-first search, or as a stack.
+ * Not thread-safe.
+ */
+public class LongDeque
+{
+    private long[] _values;
+    private int _head;
+    private int _size;
+
+    public LongDeque()
+    {
+        this(16);
+    }
+
+    public LongDeque(int capacity)
+    {
+        _values = new long[Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1];
+    }
+
+    public int size()
+    {
+        return _size;
+    }
+
+    public boolean isEmpty()
+    {
+        return _size == 0;
+    }
+
+    public void addLast(long value)
+    {
+        if (_size == _values.length)
+            grow();
+        _values[(_head + _size++) & (_values.length - 1)] = value;
+    }
+
+    public void addFirst(long value)
+    {
+        if (_size == _values.length)
+            grow();
+        _head = (_head - 1) & (_values.length - 1);
+        _values[_head] = value;
+        _size++;
+    }
+
+    public long pollFirst()
+    {
+        if (_size == 0)
+            throw new NoSuchElementException("The deque is empty");
+        long value = _values[_head];
+        _head = (_head + 1) & (_values.length - 1);
+        _size--;
+        return value;
+    }
+
+    public long pollLast()
+    {
+        if (_size == 0)
+            throw new NoSuchElementException("The deque is empty");
+        return _values[(_head + --_size) & (_values.length - 1)];
+    }
+
+    public long peekFirst()
+    {
+        if (_size == 0)
+            throw new NoSuchElementException("The deque is empty");
+        return _values[_head];
+    }
+
+    public void clear()
+    {
+        _head = 0;
+        _size = 0;
+    }
+
+    private void grow()
+    {
+        long[] values = new long[_values.length * 2];
+        int first = Math.min(_size, _values.length - _head);
+        System.arraycopy(_values, _head, values, 0, first);
+        System.arraycopy(_values, 0, values, first, _size - first);
+        _values = values;
+        _head = 0;
+    }
+}
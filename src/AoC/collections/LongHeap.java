@@ -0,0 +1,121 @@
+package AoC.collections;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A priority queue of long values with long priorities, lowest priority first,
+ * without boxing or entry objects: a binary heap in two parallel arrays.
+ *
+ *   heap.add(state, distance);
+ *   long priority = heap.peekPriority();
+ *   long state = heap.poll();
+ *
+ * There is no decrease-key: add the value again with its better priority, and skip
+ * stale entries as they come out (as Dijkstra's algorithm usually does).
+ * Not thread-safe.
+ */
+public class LongHeap
+{
+    private long[] _priorities;
+    private long[] _values;
+    private int _size;
+
+    public LongHeap()
+    {
+        this(16);
+    }
+
+    public LongHeap(int capacity)
+    {
+        _priorities = new long[Math.max(capacity, 2)];
+        _values = new long[_priorities.length];
+    }
+
+    public int size()
+    {
+        return _size;
+    }
+
+    public boolean isEmpty()
+    {
+        return _size == 0;
+    }
+
+    public void add(long value, long priority)
+    {
+        if (_size == _values.length)
+        {
+            _priorities = Arrays.copyOf(_priorities, _size * 2);
+            _values = Arrays.copyOf(_values, _size * 2);
+        }
+        // Sift up: move parents down until the new entry fits
+        int i = _size++;
+        while (i > 0)
+        {
+            int parent = (i - 1) >>> 1;
+            if (_priorities[parent] <= priority)
+                break;
+            _priorities[i] = _priorities[parent];
+            _values[i] = _values[parent];
+            i = parent;
+        }
+        _priorities[i] = priority;
+        _values[i] = value;
+    }
+
+    /**
+     * The lowest priority in the heap
+     */
+    public long peekPriority()
+    {
+        if (_size == 0)
+            throw new NoSuchElementException("The heap is empty");
+        return _priorities[0];
+    }
+
+    /**
+     * The value with the lowest priority, without removing it
+     */
+    public long peek()
+    {
+        if (_size == 0)
+            throw new NoSuchElementException("The heap is empty");
+        return _values[0];
+    }
+
+    /**
+     * Remove and return the value with the lowest priority
+     */
+    public long poll()
+    {
+        if (_size == 0)
+            throw new NoSuchElementException("The heap is empty");
+        long top = _values[0];
+        long priority = _priorities[--_size];
+        long value = _values[_size];
+
+        // Sift down: move the smaller child up until the last entry fits
+        int i = 0;
+        int half = _size >>> 1;
+        while (i < half)
+        {
+            int child = 2 * i + 1;
+            if (child + 1 < _size && _priorities[child + 1] < _priorities[child])
+                child++;
+            if (priority <= _priorities[child])
+                break;
+            _priorities[i] = _priorities[child];
+            _values[i] = _values[child];
+            i = child;
+        }
+        _priorities[i] = priority;
+        _values[i] = value;
+        return top;
+    }
+
+    public void clear()
+    {
+        _size = 0;
+    }
+}
@@ -0,0 +1,109 @@
+package AoC.collections;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of longs, without boxing. Use it in place of ArrayList&lt;Long&gt;,
+ * and as a stack (push/pop). Not thread-safe.
+ */
+public class LongList
+{
+    private long[] _values;
+    private int _size;
+
+    public LongList()
+    {
+        this(16);
+    }
+
+    public LongList(int capacity)
+    {
+        _values = new long[Math.max(capacity, 1)];
+    }
+
+    public int size()
+    {
+        return _size;
+    }
+
+    public boolean isEmpty()
+    {
+        return _size == 0;
+    }
+
+    public void add(long value)
+    {
+        if (_size == _values.length)
+            _values = Arrays.copyOf(_values, _values.length * 2);
+        _values[_size++] = value;
+    }
+
+    public void addAll(long... values)
+    {
+        for (long value : values)
+            add(value);
+    }
+
+    public long get(int index)
+    {
+        check(index);
+        return _values[index];
+    }
+
+    public void set(int index, long value)
+    {
+        check(index);
+        _values[index] = value;
+    }
+
+    public void push(long value)
+    {
+        add(value);
+    }
+
+    /**
+     * Remove and return the last value
+     */
+    public long pop()
+    {
+        if (_size == 0)
+            throw new IllegalStateException("The list is empty");
+        return _values[--_size];
+    }
+
+    /**
+     * The last value, without removing it
+     */
+    public long peek()
+    {
+        if (_size == 0)
+            throw new IllegalStateException("The list is empty");
+        return _values[_size - 1];
+    }
+
+    public void clear()
+    {
+        _size = 0;
+    }
+
+    public void sort()
+    {
+        Arrays.sort(_values, 0, _size);
+    }
+
+    public long[] toArray()
+    {
+        return Arrays.copyOf(_values, _size);
+    }
+
+    private void check(int index)
+    {
+        if (index < 0 || index >= _size)
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + _size);
+    }
+
+    public String toString()
+    {
+        return Arrays.toString(toArray());
+    }
+}
@@ -0,0 +1,179 @@
+package AoC.collections;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * A set of longs, without boxing: one plain array, probed linearly.
+ * It's the natural visited set for searches whose states are packed into a long.
+ *
+ *   LongSet seen = new LongSet();
+ *   if (seen.add(state)) ... // first visit
+ *
+ * Not thread-safe.
+ */
+public class LongSet
+{
+    /** Marks an empty slot. The value 0 itself is tracked by _hasZero. */
+    private static final long FREE = 0;
+
+    private long[] _keys;
+    private int _mask;
+    private int _limit;
+    private int _size;
+    private boolean _hasZero;
+
+    public LongSet()
+    {
+        this(16);
+    }
+
+    /**
+     * @param expected how many values to make room for up front
+     */
+    public LongSet(int expected)
+    {
+        allocate(Hashing.capacity(expected));
+    }
+
+    private void allocate(int capacity)
+    {
+        _keys = new long[capacity];
+        _mask = capacity - 1;
+        _limit = Hashing.limit(capacity);
+    }
+
+    public int size()
+    {
+        return _size;
+    }
+
+    public boolean isEmpty()
+    {
+        return _size == 0;
+    }
+
+    private int slot(long key)
+    {
+        int slot = Hashing.mix(key) & _mask;
+        while (_keys[slot] != FREE && _keys[slot] != key)
+            slot = (slot + 1) & _mask;
+        return slot;
+    }
+
+    public boolean contains(long key)
+    {
+        if (key == FREE)
+            return _hasZero;
+        return _keys[slot(key)] == key;
+    }
+
+    /**
+     * @return true if the value was added, false if it was already there
+     */
+    public boolean add(long key)
+    {
+        if (key == FREE)
+        {
+            if (_hasZero)
+                return false;
+            _hasZero = true;
+            _size++;
+            return true;
+        }
+        int slot = slot(key);
+        if (_keys[slot] == key)
+            return false;
+        _keys[slot] = key;
+        if (++_size > _limit)
+            rehash(_keys.length * 2);
+        return true;
+    }
+
+    /**
+     * @return true if the value was there
+     */
+    public boolean remove(long key)
+    {
+        if (key == FREE)
+        {
+            if (!_hasZero)
+                return false;
+            _hasZero = false;
+            _size--;
+            return true;
+        }
+        int slot = slot(key);
+        if (_keys[slot] != key)
+            return false;
+        _size--;
+
+        // Shift later entries of the same probe run back, so no lookup stops short at the hole
+        int gap = slot;
+        for (int i = (slot + 1) & _mask; _keys[i] != FREE; i = (i + 1) & _mask)
+        {
+            int home = Hashing.mix(_keys[i]) & _mask;
+            if (((i - home) & _mask) >= ((i - gap) & _mask))
+            {
+                _keys[gap] = _keys[i];
+                gap = i;
+            }
+        }
+        _keys[gap] = FREE;
+        return true;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(_keys, FREE);
+        _hasZero = false;
+        _size = 0;
+    }
+
+    private void rehash(int capacity)
+    {
+        long[] keys = _keys;
+        allocate(capacity);
+        for (long key : keys)
+        {
+            if (key != FREE)
+                _keys[slot(key)] = key;
+        }
+    }
+
+    /**
+     * Visit every value, in no particular order
+     */
+    public void forEach(LongConsumer consumer)
+    {
+        if (_hasZero)
+            consumer.accept(FREE);
+        for (long key : _keys)
+        {
+            if (key != FREE)
+                consumer.accept(key);
+        }
+    }
+
+    /**
+     * The values, in no particular order
+     */
+    public long[] toArray()
+    {
+        long[] values = new long[_size];
+        int n = 0;
+        if (_hasZero)
+            values[n++] = FREE;
+        for (long key : _keys)
+        {
+            if (key != FREE)
+                values[n++] = key;
+        }
+        return values;
+    }
+
+    public String toString()
+    {
+        return Arrays.toString(toArray());
+    }
+}
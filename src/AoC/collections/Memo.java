@@ -0,0 +1,535 @@
+package AoC.collections;
+
+import java.util.Arrays;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * A memo for recursive solvers: remembers the value of a function for each key,
+ * where the key is the function's arguments packed into a long (see key()).
+ * Keys and values live in plain arrays, so a lookup costs a hash and a short probe,
+ * rather than building a String and boxing a Long.
+ *
+ *   private final Memo memo = Memo.unbounded();
+ *
+ *   long arrangements(int pos, int group)
+ *   {
+ *       return memo.computeIfAbsent(Memo.key(pos, group), k -> {
+ *           ... recursive calls to arrangements() ...
+ *       });
+ *   }
+ *
+ * There are three kinds:
+ *   unbounded()   grows to hold every value
+ *   bounded(n)    holds at most n values, evicting the least recently used (roughly: by CLOCK)
+ *   concurrent()  for recursion that forks onto several threads (unbounded, or with a bound)
+ *
+ * hits() and misses() show whether the memo is paying off: few hits means most
+ * calls are new, and the memo is just costing memory.
+ */
+public abstract class Memo
+{
+    /**
+     * A memo that never forgets. Not thread-safe.
+     */
+    public static Memo unbounded()
+    {
+        return new Table(1024, Integer.MAX_VALUE);
+    }
+
+    /**
+     * A memo of at most maxEntries values. When it's full, adding a value evicts one
+     * that hasn't been used since the clock hand last passed it. Not thread-safe.
+     */
+    public static Memo bounded(int maxEntries)
+    {
+        if (maxEntries < 16)
+            throw new IllegalArgumentException("A bounded memo needs room for at least 16 entries");
+        return new Table(maxEntries, maxEntries);
+    }
+
+    /**
+     * A memo that several threads can share, that never forgets
+     */
+    public static Memo concurrent()
+    {
+        return new Concurrent(Integer.MAX_VALUE);
+    }
+
+    /**
+     * A memo that several threads can share, of at most (about) maxEntries values
+     */
+    public static Memo concurrent(int maxEntries)
+    {
+        return new Concurrent(maxEntries);
+    }
+
+    /**
+     * Pack two ints into a key
+     */
+    public static long key(int a, int b)
+    {
+        return (long)a << 32 | (b & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Pack three values, each from 0 to 2^21 - 1 (about 2 million), into a key
+     */
+    public static long key(int a, int b, int c)
+    {
+        if ((a | b | c) >>> 21 != 0)
+            throw new IllegalArgumentException("Memo key parts must be from 0 to 2^21 - 1: " + a + ", " + b + ", " + c);
+        return (long)a << 42 | (long)b << 21 | c;
+    }
+
+    /**
+     * Pack four values, each from 0 to 65535, into a key
+     */
+    public static long key(int a, int b, int c, int d)
+    {
+        if ((a | b | c | d) >>> 16 != 0)
+            throw new IllegalArgumentException("Memo key parts must be from 0 to 65535: " + a + ", " + b + ", " + c + ", " + d);
+        return (long)a << 48 | (long)b << 32 | (long)c << 16 | d;
+    }
+
+    /**
+     * The memoized value for the key, or else compute it, remember it and return it.
+     * The computation may call computeIfAbsent() again (that's the point), even on
+     * another thread for a concurrent memo. In a concurrent memo, two threads may both
+     * compute the same key's value, so the function must give the same answer each time.
+     */
+    public abstract long computeIfAbsent(long key, LongUnaryOperator compute);
+
+    /**
+     * The memoized value for the key, or missing if there isn't one
+     */
+    public abstract long get(long key, long missing);
+
+    public abstract boolean contains(long key);
+
+    public abstract void put(long key, long value);
+
+    /**
+     * How many values are remembered
+     */
+    public abstract long size();
+
+    /**
+     * Lookups that found a value
+     */
+    public abstract long hits();
+
+    /**
+     * Lookups that didn't find a value
+     */
+    public abstract long misses();
+
+    /**
+     * Values forgotten to make room for others (only in a bounded memo)
+     */
+    public abstract long evictions();
+
+    /**
+     * Forget every value, and reset the counters
+     */
+    public abstract void clear();
+
+    /**
+     * The fraction of lookups that found a value, or 0 if there were none
+     */
+    public double hitRate()
+    {
+        long hits = hits();
+        long lookups = hits + misses();
+        return lookups == 0 ? 0 : hits / (double)lookups;
+    }
+
+    /**
+     * For example "Memo: 1204 entries, 1.9M hits, 1204 misses (99.9% hits), 0 evictions"
+     */
+    public String toString()
+    {
+        return String.format("Memo: %d entries, %d hits, %d misses (%.1f%% hits), %d evictions",
+                size(), hits(), misses(), 100 * hitRate(), evictions());
+    }
+
+    /**
+     * An open-addressing table, optionally bounded, with CLOCK eviction
+     */
+    private static final class Table extends Memo
+    {
+        /** Marks an empty slot. Key 0 itself lives in the extra slot at the end of _values. */
+        private static final long FREE = 0;
+
+        private final int _max;
+        private long[] _keys;
+        private long[] _values;
+        /** Used since the clock hand last passed; only for a bounded table */
+        private boolean[] _referenced;
+        private int _mask;
+        private int _limit;
+        private int _size;
+        private boolean _hasZero;
+        private int _hand;
+        long _hits;
+        long _misses;
+        long _evictions;
+
+        Table(int expected, int max)
+        {
+            _max = max;
+            allocate(Hashing.capacity(expected));
+        }
+
+        private void allocate(int capacity)
+        {
+            _keys = new long[capacity];
+            _values = new long[capacity + 1];
+            if (_max != Integer.MAX_VALUE)
+                _referenced = new boolean[capacity];
+            _mask = capacity - 1;
+            _limit = Hashing.limit(capacity);
+        }
+
+        private int slot(long key)
+        {
+            int slot = Hashing.mix(key) & _mask;
+            while (_keys[slot] != FREE && _keys[slot] != key)
+                slot = (slot + 1) & _mask;
+            return slot;
+        }
+
+        /**
+         * The slot holding the key's value, or -1 if it isn't there. Counts a hit or a miss.
+         */
+        int find(long key)
+        {
+            int slot;
+            if (key == FREE)
+            {
+                slot = _hasZero ? _keys.length : -1;
+            }
+            else
+            {
+                slot = slot(key);
+                if (_keys[slot] != key)
+                    slot = -1;
+                else if (_referenced != null)
+                    _referenced[slot] = true;
+            }
+            if (slot < 0)
+                _misses++;
+            else
+                _hits++;
+            return slot;
+        }
+
+        @Override
+        public long computeIfAbsent(long key, LongUnaryOperator compute)
+        {
+            int slot = find(key);
+            if (slot >= 0)
+                return _values[slot];
+            // Don't hold on to the slot: the recursion may have moved everything
+            long value = compute.applyAsLong(key);
+            put(key, value);
+            return value;
+        }
+
+        @Override
+        public long get(long key, long missing)
+        {
+            int slot = find(key);
+            return slot < 0 ? missing : _values[slot];
+        }
+
+        long valueAt(int slot)
+        {
+            return _values[slot];
+        }
+
+        @Override
+        public boolean contains(long key)
+        {
+            if (key == FREE)
+                return _hasZero;
+            return _keys[slot(key)] == key;
+        }
+
+        @Override
+        public void put(long key, long value)
+        {
+            if (key == FREE)
+            {
+                if (!_hasZero)
+                {
+                    if (_size >= _max)
+                        evict();
+                    _size++;
+                }
+                _hasZero = true;
+                _values[_keys.length] = value;
+                return;
+            }
+            int slot = slot(key);
+            if (_keys[slot] != key)
+            {
+                if (_size >= _max)
+                {
+                    evict();
+                    slot = slot(key);
+                }
+                _keys[slot] = key;
+                if (++_size > _limit)
+                {
+                    _values[slot] = value;
+                    rehash(_keys.length * 2);
+                    return;
+                }
+            }
+            _values[slot] = value;
+        }
+
+        /**
+         * Sweep the clock hand round to the first entry not used since it last passed
+         */
+        private void evict()
+        {
+            _evictions++;
+            if (_size == 1 && _hasZero)
+            {
+                _hasZero = false;
+                _size--;
+                return;
+            }
+            while (true)
+            {
+                int slot = _hand;
+                _hand = (_hand + 1) & _mask;
+                if (_keys[slot] == FREE)
+                    continue;
+                if (_referenced[slot])
+                {
+                    _referenced[slot] = false;
+                    continue;
+                }
+                remove(slot);
+                return;
+            }
+        }
+
+        /**
+         * Empty a slot, shifting later entries of the same probe run back,
+         * so no lookup stops short at the hole
+         */
+        private void remove(int slot)
+        {
+            _size--;
+            int gap = slot;
+            for (int i = (slot + 1) & _mask; _keys[i] != FREE; i = (i + 1) & _mask)
+            {
+                int home = Hashing.mix(_keys[i]) & _mask;
+                if (((i - home) & _mask) >= ((i - gap) & _mask))
+                {
+                    _keys[gap] = _keys[i];
+                    _values[gap] = _values[i];
+                    _referenced[gap] = _referenced[i];
+                    gap = i;
+                }
+            }
+            _keys[gap] = FREE;
+            _referenced[gap] = false;
+        }
+
+        private void rehash(int capacity)
+        {
+            long[] keys = _keys;
+            long[] values = _values;
+            allocate(capacity);
+            _values[capacity] = values[keys.length];
+            for (int i = 0; i < keys.length; i++)
+            {
+                if (keys[i] != FREE)
+                {
+                    int slot = slot(keys[i]);
+                    _keys[slot] = keys[i];
+                    _values[slot] = values[i];
+                }
+            }
+        }
+
+        @Override
+        public long size()
+        {
+            return _size;
+        }
+
+        @Override
+        public long hits()
+        {
+            return _hits;
+        }
+
+        @Override
+        public long misses()
+        {
+            return _misses;
+        }
+
+        @Override
+        public long evictions()
+        {
+            return _evictions;
+        }
+
+        @Override
+        public void clear()
+        {
+            Arrays.fill(_keys, FREE);
+            if (_referenced != null)
+                Arrays.fill(_referenced, false);
+            _hasZero = false;
+            _size = 0;
+            _hand = 0;
+            _hits = _misses = _evictions = 0;
+        }
+    }
+
+    /**
+     * Tables striped by key, each behind its own lock. Values are computed outside
+     * the locks, so a computation can recurse into the memo from any thread.
+     */
+    private static final class Concurrent extends Memo
+    {
+        private final Table[] _stripes;
+
+        Concurrent(int max)
+        {
+            int stripes = Hashing.stripes();
+            _stripes = new Table[stripes];
+            int each = max == Integer.MAX_VALUE ? max : Math.max(16, max / stripes);
+            for (int i = 0; i < stripes; i++)
+                _stripes[i] = new Table(Math.min(each, 1024), each);
+        }
+
+        private Table stripe(long key)
+        {
+            return _stripes[Hashing.stripe(key, _stripes.length)];
+        }
+
+        @Override
+        public long computeIfAbsent(long key, LongUnaryOperator compute)
+        {
+            Table stripe = stripe(key);
+            synchronized (stripe)
+            {
+                int slot = stripe.find(key);
+                if (slot >= 0)
+                    return stripe.valueAt(slot);
+            }
+            long value = compute.applyAsLong(key);
+            synchronized (stripe)
+            {
+                stripe.put(key, value);
+            }
+            return value;
+        }
+
+        @Override
+        public long get(long key, long missing)
+        {
+            Table stripe = stripe(key);
+            synchronized (stripe)
+            {
+                return stripe.get(key, missing);
+            }
+        }
+
+        @Override
+        public boolean contains(long key)
+        {
+            Table stripe = stripe(key);
+            synchronized (stripe)
+            {
+                return stripe.contains(key);
+            }
+        }
+
+        @Override
+        public void put(long key, long value)
+        {
+            Table stripe = stripe(key);
+            synchronized (stripe)
+            {
+                stripe.put(key, value);
+            }
+        }
+
+        @Override
+        public long size()
+        {
+            long size = 0;
+            for (Table stripe : _stripes)
+            {
+                synchronized (stripe)
+                {
+                    size += stripe.size();
+                }
+            }
+            return size;
+        }
+
+        @Override
+        public long hits()
+        {
+            long hits = 0;
+            for (Table stripe : _stripes)
+            {
+                synchronized (stripe)
+                {
+                    hits += stripe._hits;
+                }
+            }
+            return hits;
+        }
+
+        @Override
+        public long misses()
+        {
+            long misses = 0;
+            for (Table stripe : _stripes)
+            {
+                synchronized (stripe)
+                {
+                    misses += stripe._misses;
+                }
+            }
+            return misses;
+        }
+
+        @Override
+        public long evictions()
+        {
+            long evictions = 0;
+            for (Table stripe : _stripes)
+            {
+                synchronized (stripe)
+                {
+                    evictions += stripe._evictions;
+                }
+            }
+            return evictions;
+        }
+
+        @Override
+        public void clear()
+        {
+            for (Table stripe : _stripes)
+            {
+                synchronized (stripe)
+                {
+                    stripe.clear();
+                }
+            }
+        }
+    }
+}
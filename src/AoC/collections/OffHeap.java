@@ -0,0 +1,284 @@
+package AoC.collections;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memory outside the Java heap, for the off-heap collections (OffHeapLongSet and
+ * OffHeapLongIntMap), and a running total of how much of it they hold.
+ *
+ * The memory comes either from ByteBuffer.allocateDirect() (limited by
+ * -XX:MaxDirectMemorySize, which defaults to the maximum heap size), or from a
+ * memory-mapped temp file, which is limited only by disk space and lets the OS page
+ * it out. A ByteBuffer holds at most 2 GB, so big tables are split into segments.
+ *
+ * The runner watches the peak during each solve (see watchPeak()), so a solve's
+ * off-heap footprint shows up next to its peak heap.
+ */
+public final class OffHeap
+{
+    private OffHeap()
+    {
+    }
+
+    private static final AtomicLong reserved = new AtomicLong();
+    /** The peaks being watched, each for its own solve */
+    private static final Set<Peak> peaks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The bytes held by off-heap collections right now
+     */
+    public static long reserved()
+    {
+        return reserved.get();
+    }
+
+    /**
+     * Start watching the most bytes held at once, until the peak is closed.
+     * Each caller gets its own peak, so watching one solve doesn't disturb another's.
+     */
+    public static Peak watchPeak()
+    {
+        Peak peak = new Peak(reserved.get());
+        peaks.add(peak);
+        return peak;
+    }
+
+    /**
+     * The most bytes held by off-heap collections at once since watchPeak()
+     */
+    public static final class Peak implements AutoCloseable
+    {
+        private final AtomicLong _max;
+
+        private Peak(long now)
+        {
+            _max = new AtomicLong(now);
+        }
+
+        public long get()
+        {
+            return _max.get();
+        }
+
+        /**
+         * Stop watching (get() still reports the peak seen so far)
+         */
+        @Override
+        public void close()
+        {
+            peaks.remove(this);
+        }
+    }
+
+    private static void reserve(long bytes)
+    {
+        long now = reserved.addAndGet(bytes);
+        for (Peak peak : peaks)
+            peak._max.accumulateAndGet(now, Math::max);
+    }
+
+    /**
+     * The table size (a power of 2) for a number of entries, as Hashing.capacity(),
+     * but without the 2^30 limit of a Java array
+     */
+    static long capacity(long expected)
+    {
+        long needed = (long)Math.ceil(Math.max(expected, 16) / (double)Hashing.LOAD_FACTOR);
+        if (needed > 1L << 40)
+            throw new IllegalArgumentException("Too many entries: " + expected);
+        return Long.highestOneBit(needed - 1) << 1;
+    }
+
+    static long limit(long capacity)
+    {
+        return Math.min(capacity - 1, (long)(capacity * (double)Hashing.LOAD_FACTOR));
+    }
+
+    /**
+     * All 64 bits of a key's hash, since these tables may have more than 2^32 slots
+     */
+    static long mix(long key)
+    {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    /**
+     * A fixed-length array of longs or ints outside the heap, zeroed to start with.
+     * Not thread-safe, and not to be used after free().
+     */
+    static final class Array
+    {
+        /** The bytes in each full segment: 1 GB */
+        private static final int SEGMENT_SHIFT = 30;
+
+        private final int _shift;
+        private final int _indexShift;
+        private final long _indexMask;
+        private final long _bytes;
+        private ByteBuffer[] _segments;
+
+        /**
+         * @param elementBytes 8 for longs, 4 for ints
+         * @param mapped whether to map a temp file rather than allocate direct memory
+         */
+        Array(long length, int elementBytes, boolean mapped)
+        {
+            _shift = Integer.numberOfTrailingZeros(elementBytes);
+            _indexShift = SEGMENT_SHIFT - _shift;
+            _indexMask = (1L << _indexShift) - 1;
+            _bytes = length << _shift;
+
+            int count = (int)((_bytes + (1L << SEGMENT_SHIFT) - 1) >>> SEGMENT_SHIFT);
+            _segments = new ByteBuffer[count];
+            try
+            {
+                for (int i = 0; i < count; i++)
+                {
+                    int size = (int)Math.min(1L << SEGMENT_SHIFT, _bytes - ((long)i << SEGMENT_SHIFT));
+                    _segments[i] = (mapped ? map(size) : ByteBuffer.allocateDirect(size)).order(ByteOrder.nativeOrder());
+                }
+            }
+            catch (RuntimeException | Error ex)
+            {
+                free();
+                throw ex;
+            }
+            reserve(_bytes);
+        }
+
+        long bytes()
+        {
+            return _bytes;
+        }
+
+        long getLong(long index)
+        {
+            return _segments[(int)(index >>> _indexShift)].getLong((int)(index & _indexMask) << 3);
+        }
+
+        void putLong(long index, long value)
+        {
+            _segments[(int)(index >>> _indexShift)].putLong((int)(index & _indexMask) << 3, value);
+        }
+
+        int getInt(long index)
+        {
+            return _segments[(int)(index >>> _indexShift)].getInt((int)(index & _indexMask) << 2);
+        }
+
+        void putInt(long index, int value)
+        {
+            _segments[(int)(index >>> _indexShift)].putInt((int)(index & _indexMask) << 2, value);
+        }
+
+        /**
+         * Give the memory back now, rather than whenever the garbage collector gets round to it
+         */
+        void free()
+        {
+            if (_segments == null)
+                return;
+            boolean complete = true;
+            for (ByteBuffer segment : _segments)
+            {
+                if (segment == null)
+                    complete = false;
+                else
+                    release(segment);
+            }
+            _segments = null;
+            if (complete)
+                reserved.addAndGet(-_bytes);
+        }
+
+        /**
+         * A fresh temp file, mapped. The file is deleted straight away where the OS allows
+         * (the mapping keeps its space until it's released), or else when the JVM exits.
+         */
+        private static ByteBuffer map(int size)
+        {
+            try
+            {
+                File file = File.createTempFile("aoc-offheap", ".bin");
+                try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+                {
+                    raf.setLength(size);
+                    return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+                }
+                finally
+                {
+                    if (!file.delete())
+                        file.deleteOnExit();
+                }
+            }
+            catch (IOException ex)
+            {
+                throw new UncheckedIOException("Unable to map a temp file", ex);
+            }
+        }
+    }
+
+    private static final Object unsafe;
+    private static final Method invokeCleaner;
+
+    static
+    {
+        // Java 9 and later free a direct or mapped buffer through Unsafe.invokeCleaner()
+        Object theUnsafe = null;
+        Method cleaner = null;
+        try
+        {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            theUnsafe = field.get(null);
+            cleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        }
+        catch (ReflectiveOperationException | RuntimeException ex)
+        {
+            // Java 8, or no Unsafe at all
+        }
+        unsafe = theUnsafe;
+        invokeCleaner = cleaner;
+    }
+
+    /**
+     * Free a direct or mapped buffer straight away, if the JVM lets us.
+     * If it doesn't, the memory is freed once the buffer is garbage collected.
+     */
+    private static void release(ByteBuffer buffer)
+    {
+        try
+        {
+            if (invokeCleaner != null)
+            {
+                invokeCleaner.invoke(unsafe, buffer);
+            }
+            else
+            {
+                // Java 8: DirectByteBuffer.cleaner().clean()
+                Method cleaner = buffer.getClass().getMethod("cleaner");
+                cleaner.setAccessible(true);
+                Object clean = cleaner.invoke(buffer);
+                if (clean != null)
+                    clean.getClass().getMethod("clean").invoke(clean);
+            }
+        }
+        catch (ReflectiveOperationException | RuntimeException ex)
+        {
+            // Left for the garbage collector
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package AoC.collections;
+
+/**
+ * A map from long to int outside the Java heap, e.g. from each state of a huge search
+ * to its distance: 12 bytes per slot, no objects, and no garbage collection.
+ *
+ *   try (OffHeapLongIntMap distances = new OffHeapLongIntMap(100_000_000L, -1))
+ *   {
+ *       distances.put(start, 0);
+ *       ...
+ *   }
+ *
+ * Missing keys read as the map's default value. Close it when done, to free the memory
+ * at once; see OffHeapLongSet for the mapped option.
+ * Not thread-safe.
+ */
+public class OffHeapLongIntMap implements AutoCloseable
+{
+    /** Marks an empty slot. Key 0 itself is kept aside, in _zeroValue. */
+    private static final long FREE = 0;
+
+    private final boolean _mapped;
+    private final int _default;
+    private OffHeap.Array _keys;
+    private OffHeap.Array _values;
+    private long _mask;
+    private long _limit;
+    private long _size;
+    private boolean _hasZero;
+    private int _zeroValue;
+
+    public OffHeapLongIntMap()
+    {
+        this(1024, 0, false);
+    }
+
+    /**
+     * @param expected how many keys to make room for up front
+     * @param defaultValue what get() returns for a missing key
+     */
+    public OffHeapLongIntMap(long expected, int defaultValue)
+    {
+        this(expected, defaultValue, false);
+    }
+
+    /**
+     * @param expected how many keys to make room for up front
+     * @param defaultValue what get() returns for a missing key
+     * @param mapped keep the tables in memory-mapped temp files
+     */
+    public OffHeapLongIntMap(long expected, int defaultValue, boolean mapped)
+    {
+        _mapped = mapped;
+        _default = defaultValue;
+        allocate(OffHeap.capacity(expected));
+    }
+
+    private void allocate(long capacity)
+    {
+        OffHeap.Array keys = new OffHeap.Array(capacity, 8, _mapped);
+        try
+        {
+            _values = new OffHeap.Array(capacity, 4, _mapped);
+        }
+        catch (RuntimeException | Error ex)
+        {
+            keys.free();
+            throw ex;
+        }
+        _keys = keys;
+        _mask = capacity - 1;
+        _limit = OffHeap.limit(capacity);
+    }
+
+    public long size()
+    {
+        return _size;
+    }
+
+    public boolean isEmpty()
+    {
+        return _size == 0;
+    }
+
+    /**
+     * The bytes of memory the tables take
+     */
+    public long footprint()
+    {
+        return _keys == null ? 0 : _keys.bytes() + _values.bytes();
+    }
+
+    private long slot(long key)
+    {
+        long slot = OffHeap.mix(key) & _mask;
+        long found;
+        while ((found = _keys.getLong(slot)) != FREE && found != key)
+            slot = (slot + 1) & _mask;
+        return slot;
+    }
+
+    public boolean containsKey(long key)
+    {
+        if (key == FREE)
+            return _hasZero;
+        return _keys.getLong(slot(key)) == key;
+    }
+
+    public int get(long key)
+    {
+        if (key == FREE)
+            return _hasZero ? _zeroValue : _default;
+        long slot = slot(key);
+        return _keys.getLong(slot) == key ? _values.getInt(slot) : _default;
+    }
+
+    /**
+     * @return the previous value, or the default value if there wasn't one
+     */
+    public int put(long key, int value)
+    {
+        if (key == FREE)
+        {
+            int previous = _hasZero ? _zeroValue : _default;
+            if (!_hasZero)
+                _size++;
+            _hasZero = true;
+            _zeroValue = value;
+            return previous;
+        }
+        long slot = slot(key);
+        if (_keys.getLong(slot) == key)
+        {
+            int previous = _values.getInt(slot);
+            _values.putInt(slot, value);
+            return previous;
+        }
+        _keys.putLong(slot, key);
+        _values.putInt(slot, value);
+        if (++_size > _limit)
+            rehash((_mask + 1) * 2);
+        return _default;
+    }
+
+    /**
+     * Add to a key's value (starting from the default value if it's missing)
+     *
+     * @return the new value
+     */
+    public int addTo(long key, int delta)
+    {
+        int value = get(key) + delta;
+        put(key, value);
+        return value;
+    }
+
+    private void rehash(long capacity)
+    {
+        OffHeap.Array keys = _keys;
+        OffHeap.Array values = _values;
+        long length = _mask + 1;
+        allocate(capacity);
+        for (long i = 0; i < length; i++)
+        {
+            long key = keys.getLong(i);
+            if (key != FREE)
+            {
+                long slot = slot(key);
+                _keys.putLong(slot, key);
+                _values.putInt(slot, values.getInt(i));
+            }
+        }
+        keys.free();
+        values.free();
+    }
+
+    public interface EntryConsumer
+    {
+        void accept(long key, int value);
+    }
+
+    /**
+     * Visit every entry, in no particular order
+     */
+    public void forEach(EntryConsumer consumer)
+    {
+        if (_hasZero)
+            consumer.accept(FREE, _zeroValue);
+        for (long i = 0; i <= _mask; i++)
+        {
+            long key = _keys.getLong(i);
+            if (key != FREE)
+                consumer.accept(key, _values.getInt(i));
+        }
+    }
+
+    /**
+     * Empty the map, and shrink it back to small tables
+     */
+    public void clear()
+    {
+        _keys.free();
+        _values.free();
+        allocate(OffHeap.capacity(1024));
+        _hasZero = false;
+        _size = 0;
+    }
+
+    /**
+     * Free the memory. The map can't be used after this.
+     */
+    @Override
+    public void close()
+    {
+        if (_keys != null)
+        {
+            _keys.free();
+            _values.free();
+            _keys = null;
+            _values = null;
+        }
+    }
+
+    public String toString()
+    {
+        return "OffHeapLongIntMap(" + _size + " entries, " + footprint() + " bytes)";
+    }
+}
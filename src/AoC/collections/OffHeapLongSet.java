@@ -0,0 +1,175 @@
+package AoC.collections;
+
+import java.util.function.LongConsumer;
+
+/**
+ * A set of longs outside the Java heap, for searches that visit more states than the
+ * heap could hold: 8 bytes per slot (about 13 per value, at most 0.6 full), no objects,
+ * and nothing for the garbage collector to scan or copy.
+ *
+ *   try (OffHeapLongSet seen = new OffHeapLongSet(500_000_000L))
+ *   {
+ *       if (seen.add(state)) ... // first visit
+ *   }
+ *
+ * Close it when done, to free the memory at once. Pass mapped = true to keep the
+ * table in a memory-mapped temp file instead of direct memory, when it won't fit
+ * in -XX:MaxDirectMemorySize (or in RAM).
+ * Not thread-safe.
+ */
+public class OffHeapLongSet implements AutoCloseable
+{
+    /** Marks an empty slot. The value 0 itself is tracked by _hasZero. */
+    private static final long FREE = 0;
+
+    private final boolean _mapped;
+    private OffHeap.Array _keys;
+    private long _mask;
+    private long _limit;
+    private long _size;
+    private boolean _hasZero;
+
+    public OffHeapLongSet()
+    {
+        this(1024, false);
+    }
+
+    /**
+     * @param expected how many values to make room for up front
+     */
+    public OffHeapLongSet(long expected)
+    {
+        this(expected, false);
+    }
+
+    /**
+     * @param expected how many values to make room for up front
+     * @param mapped keep the table in a memory-mapped temp file
+     */
+    public OffHeapLongSet(long expected, boolean mapped)
+    {
+        _mapped = mapped;
+        allocate(OffHeap.capacity(expected));
+    }
+
+    private void allocate(long capacity)
+    {
+        _keys = new OffHeap.Array(capacity, 8, _mapped);
+        _mask = capacity - 1;
+        _limit = OffHeap.limit(capacity);
+    }
+
+    public long size()
+    {
+        return _size;
+    }
+
+    public boolean isEmpty()
+    {
+        return _size == 0;
+    }
+
+    /**
+     * The bytes of memory the table takes
+     */
+    public long footprint()
+    {
+        return _keys == null ? 0 : _keys.bytes();
+    }
+
+    private long slot(long key)
+    {
+        long slot = OffHeap.mix(key) & _mask;
+        long found;
+        while ((found = _keys.getLong(slot)) != FREE && found != key)
+            slot = (slot + 1) & _mask;
+        return slot;
+    }
+
+    public boolean contains(long key)
+    {
+        if (key == FREE)
+            return _hasZero;
+        return _keys.getLong(slot(key)) == key;
+    }
+
+    /**
+     * @return true if the value was added, false if it was already there
+     */
+    public boolean add(long key)
+    {
+        if (key == FREE)
+        {
+            if (_hasZero)
+                return false;
+            _hasZero = true;
+            _size++;
+            return true;
+        }
+        long slot = slot(key);
+        if (_keys.getLong(slot) == key)
+            return false;
+        _keys.putLong(slot, key);
+        if (++_size > _limit)
+            rehash((_mask + 1) * 2);
+        return true;
+    }
+
+    private void rehash(long capacity)
+    {
+        OffHeap.Array keys = _keys;
+        long length = _mask + 1;
+        allocate(capacity);
+        for (long i = 0; i < length; i++)
+        {
+            long key = keys.getLong(i);
+            if (key != FREE)
+                _keys.putLong(slot(key), key);
+        }
+        keys.free();
+    }
+
+    /**
+     * Visit every value, in no particular order
+     */
+    public void forEach(LongConsumer consumer)
+    {
+        if (_hasZero)
+            consumer.accept(FREE);
+        for (long i = 0; i <= _mask; i++)
+        {
+            long key = _keys.getLong(i);
+            if (key != FREE)
+                consumer.accept(key);
+        }
+    }
+
+    /**
+     * Empty the set, and shrink it back to a small table
+     */
+    public void clear()
+    {
+        _keys.free();
+        allocate(OffHeap.capacity(1024));
+        _hasZero = false;
+        _size = 0;
+    }
+
+    /**
+     * Free the memory. The set can't be used after this.
+     */
+    @Override
+    public void close()
+    {
+        if (_keys != null)
+        {
+            _keys.free();
+            _keys = null;
+        }
+    }
+
+    public String toString()
+    {
+        return "OffHeapLongSet(" + _size + " values, " + footprint() + " bytes)";
+    }
+}
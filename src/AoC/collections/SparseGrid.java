@@ -0,0 +1,373 @@
+package AoC.collections;
+
+import java.util.function.LongConsumer;
+
+import AoC.Reader;
+
+/**
+ * An unbounded grid in 2, 3 or 4 dimensions, holding a long value for each cell that
+ * has been set. Each cell's coordinates are packed into a long key, and the cells live
+ * in a LongLongMap, so there's no Point object or "x,y" string per cell.
+ *
+ *   SparseGrid cubes = SparseGrid.parse(input, '#', 3);
+ *   int crowded = 0;
+ *   for (long cell : cubes.keys())
+ *   {
+ *       if (cubes.countNeighbors(cell, true) > 3)
+ *           crowded++;
+ *   }
+ *
+ * Coordinates may be negative. In 2D they are any int; in 3D from -2^20 to 2^20 - 1
+ * (about a million either way); in 4D from -32768 to 32767. Neighbours are found by
+ * adding an offset to the key, so keep one cell clear of those limits.
+ * Not thread-safe.
+ */
+public class SparseGrid
+{
+    private final int _dimensions;
+    /** Bits per coordinate */
+    private final int _bits;
+    /** Added to each coordinate, so every packed field is non-negative */
+    private final long _bias;
+    private final long _fieldMask;
+    private final LongLongMap _cells = new LongLongMap();
+    /** The key offsets of the 3^d - 1 cells around a cell, and of the 2d that share a face */
+    private final long[] _allNeighbors;
+    private final long[] _faceNeighbors;
+    private final int[] _min;
+    private final int[] _max;
+    private boolean _boundsStale;
+
+    public SparseGrid(int dimensions)
+    {
+        if (dimensions < 2 || dimensions > 4)
+            throw new IllegalArgumentException("A sparse grid has 2, 3 or 4 dimensions, not " + dimensions);
+        _dimensions = dimensions;
+        _bits = dimensions == 2 ? 32 : dimensions == 3 ? 21 : 16;
+        _bias = 1L << (_bits - 1);
+        _fieldMask = (1L << _bits) - 1;
+        _min = new int[dimensions];
+        _max = new int[dimensions];
+
+        int all = 1;
+        for (int i = 0; i < dimensions; i++)
+            all *= 3;
+        _allNeighbors = new long[all - 1];
+        _faceNeighbors = new long[2 * dimensions];
+        int n = 0, f = 0;
+        for (int combination = 0; combination < all; combination++)
+        {
+            // Each digit of the combination, in base 3, is a step of -1, 0 or 1 along a dimension
+            long offset = 0;
+            int moves = 0;
+            for (int i = 0, digits = combination; i < dimensions; i++, digits /= 3)
+            {
+                int step = digits % 3 - 1;
+                offset += (long)step << shift(i);
+                if (step != 0)
+                    moves++;
+            }
+            if (moves > 0)
+                _allNeighbors[n++] = offset;
+            if (moves == 1)
+                _faceNeighbors[f++] = offset;
+        }
+    }
+
+    /**
+     * The cells of the input that are the 'on' character, with value 1: the column is x,
+     * the line is y, and any other coordinates are 0
+     */
+    public static SparseGrid parse(Reader input, char on, int dimensions)
+    {
+        SparseGrid grid = new SparseGrid(dimensions);
+        String[] lines = input.allLineStrings();
+        for (int y = 0; y < lines.length; y++)
+        {
+            for (int x = 0; x < lines[y].length(); x++)
+            {
+                if (lines[y].charAt(x) == on)
+                    grid.put(grid.pack(x, y, 0, 0), 1);
+            }
+        }
+        return grid;
+    }
+
+    public int dimensions()
+    {
+        return _dimensions;
+    }
+
+    /**
+     * Dimension 0 (x) is in the highest bits, so keys sort by x first
+     */
+    private int shift(int dimension)
+    {
+        return (_dimensions - 1 - dimension) * _bits;
+    }
+
+    private long field(int value)
+    {
+        long field = value + _bias;
+        if ((field & ~_fieldMask) != 0)
+            throw new IllegalArgumentException("Coordinate " + value + " is out of range for a " + _dimensions + "D grid");
+        return field;
+    }
+
+    private long pack(int x, int y, int z, int w)
+    {
+        long key = field(x) << shift(0) | field(y) << shift(1);
+        if (_dimensions > 2)
+            key |= field(z) << shift(2);
+        if (_dimensions > 3)
+            key |= field(w) << shift(3);
+        return key;
+    }
+
+    private void checkDimensions(int dimensions)
+    {
+        if (dimensions != _dimensions)
+            throw new IllegalArgumentException(dimensions + " coordinates for a " + _dimensions + "D grid");
+    }
+
+    public long key(int x, int y)
+    {
+        checkDimensions(2);
+        return pack(x, y, 0, 0);
+    }
+
+    public long key(int x, int y, int z)
+    {
+        checkDimensions(3);
+        return pack(x, y, z, 0);
+    }
+
+    public long key(int x, int y, int z, int w)
+    {
+        checkDimensions(4);
+        return pack(x, y, z, w);
+    }
+
+    /**
+     * One coordinate of a key: dimension 0 is x, 1 is y, 2 is z, 3 is w
+     */
+    public int coordinate(long key, int dimension)
+    {
+        return (int)(((key >>> shift(dimension)) & _fieldMask) - _bias);
+    }
+
+    public int x(long key)
+    {
+        return coordinate(key, 0);
+    }
+
+    public int y(long key)
+    {
+        return coordinate(key, 1);
+    }
+
+    public int z(long key)
+    {
+        return coordinate(key, 2);
+    }
+
+    public int w(long key)
+    {
+        return coordinate(key, 3);
+    }
+
+    /**
+     * How many cells are set
+     */
+    public int size()
+    {
+        return _cells.size();
+    }
+
+    public boolean isEmpty()
+    {
+        return _cells.isEmpty();
+    }
+
+    public boolean contains(long key)
+    {
+        return _cells.containsKey(key);
+    }
+
+    /**
+     * A cell's value, or 0 if it isn't set
+     */
+    public long get(long key)
+    {
+        return _cells.get(key);
+    }
+
+    /**
+     * Set a cell's value
+     *
+     * @return its previous value, or 0 if it wasn't set
+     */
+    public long put(long key, long value)
+    {
+        if (!_boundsStale)
+        {
+            boolean first = _cells.isEmpty();
+            for (int i = 0; i < _dimensions; i++)
+            {
+                int c = coordinate(key, i);
+                if (first || c < _min[i])
+                    _min[i] = c;
+                if (first || c > _max[i])
+                    _max[i] = c;
+            }
+        }
+        return _cells.put(key, value);
+    }
+
+    /**
+     * Set a cell, with value 1
+     *
+     * @return true if it wasn't set before
+     */
+    public boolean add(long key)
+    {
+        boolean added = !_cells.containsKey(key);
+        put(key, 1);
+        return added;
+    }
+
+    /**
+     * Unset a cell
+     *
+     * @return its value, or 0 if it wasn't set
+     */
+    public long remove(long key)
+    {
+        if (!_cells.containsKey(key))
+            return 0;
+        _boundsStale = true;
+        return _cells.remove(key);
+    }
+
+    public void clear()
+    {
+        _cells.clear();
+        _boundsStale = false;
+    }
+
+    /**
+     * The key offsets of a cell's neighbours: add one to a cell's key to get a neighbour's.
+     * With diagonals, all 3^d - 1 cells around it (8 in 2D, 26 in 3D, 80 in 4D); without,
+     * the 2d cells that share a face. The array is shared, so don't change it.
+     *
+     *   for (long offset : grid.neighbors(true))
+     *       if (grid.contains(cell + offset)) ...
+     */
+    public long[] neighbors(boolean diagonals)
+    {
+        return diagonals ? _allNeighbors : _faceNeighbors;
+    }
+
+    /**
+     * Visit the keys of a cell's neighbours (whether they're set or not)
+     */
+    public void forEachNeighbor(long key, boolean diagonals, LongConsumer consumer)
+    {
+        for (long offset : neighbors(diagonals))
+            consumer.accept(key + offset);
+    }
+
+    /**
+     * How many of a cell's neighbours are set
+     */
+    public int countNeighbors(long key, boolean diagonals)
+    {
+        int count = 0;
+        for (long offset : neighbors(diagonals))
+        {
+            if (_cells.containsKey(key + offset))
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * The keys of the cells that are set, in no particular order
+     */
+    public long[] keys()
+    {
+        return _cells.keys();
+    }
+
+    /**
+     * Visit every cell that is set, with its value
+     */
+    public void forEach(LongLongMap.EntryConsumer consumer)
+    {
+        _cells.forEach(consumer);
+    }
+
+    /**
+     * The least coordinate of any set cell along a dimension
+     */
+    public int min(int dimension)
+    {
+        updateBounds();
+        return _min[dimension];
+    }
+
+    /**
+     * The greatest coordinate of any set cell along a dimension
+     */
+    public int max(int dimension)
+    {
+        updateBounds();
+        return _max[dimension];
+    }
+
+    /**
+     * How many cells the bounding box spans along a dimension
+     */
+    public int extent(int dimension)
+    {
+        return max(dimension) - min(dimension) + 1;
+    }
+
+    /**
+     * Removing a cell may shrink the bounding box, so it is found again, when next asked for
+     */
+    private void updateBounds()
+    {
+        if (_cells.isEmpty())
+            throw new IllegalStateException("An empty grid has no bounds");
+        if (!_boundsStale)
+            return;
+        _boundsStale = false;
+        boolean first = true;
+        for (long key : _cells.keys())
+        {
+            for (int i = 0; i < _dimensions; i++)
+            {
+                int c = coordinate(key, i);
+                if (first || c < _min[i])
+                    _min[i] = c;
+                if (first || c > _max[i])
+                    _max[i] = c;
+            }
+            first = false;
+        }
+    }
+
+    public String toString()
+    {
+        if (_cells.isEmpty())
+            return "Empty " + _dimensions + "D grid";
+        StringBuilder text = new StringBuilder(_dimensions + "D grid of " + size() + " cells, from (");
+        for (int i = 0; i < _dimensions; i++)
+            text.append(i > 0 ? ", " : "").append(min(i));
+        text.append(") to (");
+        for (int i = 0; i < _dimensions; i++)
+            text.append(i > 0 ? ", " : "").append(max(i));
+        return text.append(')').toString();
+    }
+}
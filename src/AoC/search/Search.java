@@ -0,0 +1,457 @@
+package AoC.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+
+import AoC.ADay;
+import AoC.Progress;
+import AoC.collections.ConcurrentLongSet;
+import AoC.collections.LongDeque;
+import AoC.collections.LongHeap;
+import AoC.collections.LongList;
+import AoC.collections.LongLongMap;
+
+/**
+ * Shortest paths through a StateSpace, without a state object or a boxed Long in sight:
+ * distances live in a LongLongMap, and the queue is a LongDeque or LongHeap.
+ *
+ *   SearchResult result = new Search(maze).progress(progress()).bfs(start, state -> state == exit);
+ *   return result.distance;
+ *
+ * Pick the search by the cost of a move:
+ *   bfs()         every move costs 1
+ *   zeroOneBfs()  every move costs 0 or 1
+ *   dijkstra()    any cost, as long as it isn't negative
+ *   aStar()       as dijkstra, guided by an estimate of the distance left
+ *   parallelBfs() as bfs, expanding each level on all cores (for millions of states per level)
+ *
+ * The goal may be null, to explore every reachable state (then see result.distances()).
+ * Each search checks for Cancel as it goes, and counts expanded states on the Progress
+ * it's given, so the UI shows them per second while it runs.
+ * A Search can be reused, but not by several threads at once.
+ */
+public class Search
+{
+    private final StateSpace _space;
+    private Progress _progress;
+    private boolean _keepPaths;
+    private long _maxDistance = Long.MAX_VALUE;
+    private int _expectedStates = 1024;
+    private LongUnaryOperator _canonical;
+    private ForkJoinPool _pool;
+
+    public Search(StateSpace space)
+    {
+        _space = space;
+    }
+
+    /**
+     * Count each expanded state on this progress (usually the day's progress())
+     */
+    public Search progress(Progress progress)
+    {
+        _progress = progress;
+        return this;
+    }
+
+    /**
+     * Remember how each state was reached, so result.path() can retrace it.
+     * Costs a second table as big as the distances.
+     */
+    public Search keepPaths()
+    {
+        _keepPaths = true;
+        return this;
+    }
+
+    /**
+     * Don't go further than this from the start, e.g. to find every state within 50 steps
+     */
+    public Search maxDistance(long maxDistance)
+    {
+        _maxDistance = maxDistance;
+        return this;
+    }
+
+    /**
+     * Make room for this many states up front, to save re-hashing as the search grows
+     */
+    public Search expectStates(int expectedStates)
+    {
+        _expectedStates = expectedStates;
+        return this;
+    }
+
+    /**
+     * Map each state to a canonical one before it is counted as seen, so states that are
+     * equivalent (mirror images, say, or interchangeable items in different order) are
+     * only expanded once. Distances, paths and goal tests all see the canonical states.
+     */
+    public Search canonical(LongUnaryOperator canonical)
+    {
+        _canonical = canonical;
+        return this;
+    }
+
+    /**
+     * The pool that parallelBfs() expands each level on (the common pool, unless given)
+     */
+    public Search pool(ForkJoinPool pool)
+    {
+        _pool = pool;
+        return this;
+    }
+
+    private long canonical(long state)
+    {
+        return _canonical == null ? state : _canonical.applyAsLong(state);
+    }
+
+    /**
+     * Breadth-first search, for moves that all cost 1 (the cost given is ignored)
+     */
+    public SearchResult bfs(long start, LongPredicate goal)
+    {
+        start = canonical(start);
+        Run run = new Run(start, goal, null);
+        LongDeque queue = new LongDeque(_expectedStates);
+        queue.addLast(start);
+        run.queue = queue;
+        while (!queue.isEmpty())
+        {
+            long state = queue.pollFirst();
+            if (run.expand(state, run.distances.get(state), Run.BFS))
+                break;
+        }
+        return run.finish();
+    }
+
+    /**
+     * Breadth-first search for moves that cost 0 or 1: a free move goes to the front
+     * of the queue, so states still come off it in order of distance.
+     */
+    public SearchResult zeroOneBfs(long start, LongPredicate goal)
+    {
+        start = canonical(start);
+        Run run = new Run(start, goal, null);
+        // Each entry is a (distance, state) pair, so that stale entries can be skipped
+        LongDeque queue = new LongDeque(_expectedStates);
+        queue.addLast(start);
+        queue.addLast(0);
+        run.queue = queue;
+        while (!queue.isEmpty())
+        {
+            long state = queue.pollFirst();
+            long distance = queue.pollFirst();
+            if (distance > run.distances.get(state))
+                continue;
+            if (run.expand(state, distance, Run.ZERO_ONE))
+                break;
+        }
+        return run.finish();
+    }
+
+    /**
+     * Dijkstra's algorithm, for moves of any cost that isn't negative
+     */
+    public SearchResult dijkstra(long start, LongPredicate goal)
+    {
+        return aStar(start, goal, null);
+    }
+
+    /**
+     * A*: Dijkstra's algorithm, expanding first the states whose distance so far plus
+     * estimated distance left is least. The estimate must never be more than the real
+     * distance left, or the path found may not be the shortest.
+     *
+     * @param heuristic the estimated distance from a state to the nearest goal, or null for none
+     */
+    public SearchResult aStar(long start, LongPredicate goal, LongUnaryOperator heuristic)
+    {
+        start = canonical(start);
+        Run run = new Run(start, goal, heuristic);
+        LongHeap heap = new LongHeap(_expectedStates);
+        heap.add(start, run.estimate(start, 0));
+        run.heap = heap;
+        while (!heap.isEmpty())
+        {
+            long priority = heap.peekPriority();
+            long state = heap.poll();
+            long distance = run.distances.get(state);
+            // A state is queued again whenever a shorter way to it is found: skip the old entries
+            if (priority > run.estimate(state, distance))
+                continue;
+            if (run.expand(state, distance, Run.DIJKSTRA))
+                break;
+        }
+        return run.finish();
+    }
+
+    /**
+     * Breadth-first search, for moves that all cost 1, one level at a time: each level's
+     * states are expanded in parallel, and the new states they reach make up the next level.
+     *
+     * Worth it when the levels are big (tens of thousands of states or more); for smaller
+     * ones, bfs() is faster. The StateSpace, goal and canonical() must be safe to call from
+     * several threads at once. Only the set of states seen is kept, not their distances,
+     * so the result has no distances() or path(), just the goal and its distance.
+     */
+    public SearchResult parallelBfs(long start, LongPredicate goal)
+    {
+        if (_keepPaths)
+            throw new IllegalStateException("A parallel search can't keep paths");
+        long startNanos = System.nanoTime();
+        start = canonical(start);
+        SearchResult result = new SearchResult(start, null, null);
+        ConcurrentLongSet seen = new ConcurrentLongSet(_expectedStates);
+        seen.add(start);
+        ForkJoinPool pool = _pool != null ? _pool : ForkJoinPool.commonPool();
+
+        long[] level = { start };
+        for (long distance = 0; level.length > 0; distance++)
+        {
+            Level expand = new Level(level, goal, seen, distance < _maxDistance, Thread.currentThread());
+            pool.invoke(expand);
+            ADay.checkCancelled();
+            result.expanded += level.length;
+            result.generated += expand.generated;
+            if (_progress != null)
+                _progress.add(level.length);
+            if (expand.found)
+            {
+                result.found = true;
+                result.goal = expand.goal;
+                result.distance = distance;
+                break;
+            }
+            level = expand.next();
+        }
+        result._visited = seen.size();
+        result.nanos = System.nanoTime() - startNanos;
+        return result;
+    }
+
+    /**
+     * Expands one level of a parallel BFS, splitting it until the pieces are small
+     */
+    private class Level extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+        private static final int LEAF = 256;
+
+        final long[] states;
+        final LongPredicate goalTest;
+        final ConcurrentLongSet seen;
+        final boolean expand;
+        final Thread solver;
+        /** The new states found by each piece */
+        final List<LongList> pieces = new ArrayList<LongList>();
+        volatile boolean done;
+        long generated;
+        boolean found;
+        long goal;
+
+        Level(long[] states, LongPredicate goalTest, ConcurrentLongSet seen, boolean expand, Thread solver)
+        {
+            this.states = states;
+            this.goalTest = goalTest;
+            this.seen = seen;
+            this.expand = expand;
+            this.solver = solver;
+        }
+
+        @Override
+        protected void compute()
+        {
+            new Piece(0, states.length).compute();
+        }
+
+        long[] next()
+        {
+            int size = 0;
+            for (LongList piece : pieces)
+                size += piece.size();
+            long[] next = new long[size];
+            int i = 0;
+            for (LongList piece : pieces)
+            {
+                for (int j = 0; j < piece.size(); j++)
+                    next[i++] = piece.get(j);
+            }
+            return next;
+        }
+
+        private class Piece extends RecursiveAction
+        {
+            private static final long serialVersionUID = 1L;
+
+            final int from, to;
+
+            Piece(int from, int to)
+            {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute()
+            {
+                if (to - from > LEAF)
+                {
+                    int middle = (from + to) >>> 1;
+                    invokeAll(new Piece(from, middle), new Piece(middle, to));
+                    return;
+                }
+                // Stop early once a goal is found, or the solver is cancelled
+                if (done || solver.isInterrupted())
+                    return;
+
+                LongList next = new LongList();
+                long[] generated = new long[1];
+                StateSpace.Neighbors out = (state, cost) -> {
+                    generated[0]++;
+                    state = canonical(state);
+                    if (seen.add(state))
+                        next.add(state);
+                };
+                for (int i = from; i < to; i++)
+                {
+                    long state = states[i];
+                    if (goalTest != null && goalTest.test(state))
+                    {
+                        goal(state);
+                        return;
+                    }
+                    if (expand)
+                        _space.neighbors(state, out);
+                }
+                synchronized (Level.this)
+                {
+                    pieces.add(next);
+                    Level.this.generated += generated[0];
+                }
+            }
+        }
+
+        private synchronized void goal(long state)
+        {
+            if (!found)
+            {
+                found = true;
+                goal = state;
+            }
+            done = true;
+        }
+    }
+
+    /**
+     * The state of one search, which also receives each expanded state's neighbours
+     */
+    private class Run implements StateSpace.Neighbors
+    {
+        static final int BFS = 0, ZERO_ONE = 1, DIJKSTRA = 2;
+
+        final SearchResult result;
+        final LongLongMap distances;
+        final LongLongMap parents;
+        final LongPredicate goal;
+        final LongUnaryOperator heuristic;
+        final long startNanos = System.nanoTime();
+        LongDeque queue;
+        LongHeap heap;
+
+        // The state being expanded
+        int mode;
+        long current;
+        long currentDistance;
+
+        Run(long start, LongPredicate goal, LongUnaryOperator heuristic)
+        {
+            this.goal = goal;
+            this.heuristic = heuristic;
+            distances = new LongLongMap(_expectedStates, SearchResult.UNREACHED);
+            parents = _keepPaths ? new LongLongMap(_expectedStates, SearchResult.UNREACHED) : null;
+            result = new SearchResult(start, distances, parents);
+            distances.put(start, 0);
+        }
+
+        long estimate(long state, long distance)
+        {
+            return heuristic == null ? distance : distance + heuristic.applyAsLong(state);
+        }
+
+        /**
+         * @return true if the state is a goal, and the search is over
+         */
+        boolean expand(long state, long distance, int mode)
+        {
+            if (goal != null && goal.test(state))
+            {
+                result.found = true;
+                result.goal = state;
+                result.distance = distance;
+                return true;
+            }
+            if (++result.expanded % 4096 == 0 && _progress == null)
+                ADay.checkCancelled();
+            if (_progress != null)
+                _progress.tick();
+
+            this.mode = mode;
+            current = state;
+            currentDistance = distance;
+            _space.neighbors(state, this);
+            return false;
+        }
+
+        @Override
+        public void add(long state, long cost)
+        {
+            result.generated++;
+            state = canonical(state);
+            if (mode == BFS)
+                cost = 1;
+            else if (cost < 0 || mode == ZERO_ONE && cost > 1)
+                throw new IllegalArgumentException("A move from " + current + " to " + state + " costs " + cost);
+
+            long distance = currentDistance + cost;
+            if (distance > _maxDistance || distance >= distances.get(state))
+                return;
+            distances.put(state, distance);
+            if (parents != null)
+                parents.put(state, current);
+
+            switch (mode)
+            {
+            case BFS:
+                queue.addLast(state);
+                break;
+            case ZERO_ONE:
+                if (cost == 0)
+                {
+                    queue.addFirst(distance);
+                    queue.addFirst(state);
+                }
+                else
+                {
+                    queue.addLast(state);
+                    queue.addLast(distance);
+                }
+                break;
+            default:
+                heap.add(state, estimate(state, distance));
+                break;
+            }
+        }
+
+        SearchResult finish()
+        {
+            result.nanos = System.nanoTime() - startNanos;
+            return result;
+        }
+    }
+}
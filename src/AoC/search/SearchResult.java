@@ -0,0 +1,116 @@
+package AoC.search;
+
+import AoC.Progress;
+import AoC.collections.LongList;
+import AoC.collections.LongLongMap;
+
+/**
+ * What a search found, and how hard it worked to find it
+ */
+public class SearchResult
+{
+    /** The distance of a state that wasn't reached */
+    public static final long UNREACHED = Long.MAX_VALUE;
+
+    /** Was a goal state reached? */
+    public boolean found;
+    /** The goal state reached, if found */
+    public long goal;
+    /** The distance from the start to the goal, or UNREACHED */
+    public long distance = UNREACHED;
+    /** States taken off the queue and expanded */
+    public long expanded;
+    /** Neighbours generated (including ones already seen) */
+    public long generated;
+    public long nanos;
+
+    private final long _start;
+    private final LongLongMap _distances;
+    private final LongLongMap _parents;
+    /** How many states a parallel search saw, as it keeps no distances */
+    long _visited;
+
+    SearchResult(long start, LongLongMap distances, LongLongMap parents)
+    {
+        _start = start;
+        _distances = distances;
+        _parents = parents;
+    }
+
+    /**
+     * The best known distance from the start to any state seen, or UNREACHED.
+     * For a state that was expanded (rather than just seen), it is the shortest.
+     */
+    public long distance(long state)
+    {
+        return distances().get(state);
+    }
+
+    /**
+     * How many distinct states were seen
+     */
+    public long visited()
+    {
+        return _distances == null ? _visited : _distances.size();
+    }
+
+    /**
+     * Every state seen, with its distance
+     */
+    public LongLongMap distances()
+    {
+        if (_distances == null)
+            throw new IllegalStateException("A parallel search keeps no distances, just the states seen");
+        return _distances;
+    }
+
+    /**
+     * The states from the start to the goal, both included.
+     * Only available if the search was asked to keep paths (see Search.keepPaths()).
+     */
+    public long[] path()
+    {
+        if (!found)
+            return new long[0];
+        return path(goal);
+    }
+
+    /**
+     * The states from the start to any state seen, both included
+     */
+    public long[] path(long state)
+    {
+        if (_parents == null)
+            throw new IllegalStateException("Paths weren't kept: call keepPaths() before searching");
+        if (_distances.get(state) == UNREACHED)
+            return new long[0];
+        LongList path = new LongList();
+        path.add(state);
+        while (state != _start)
+        {
+            state = _parents.get(state);
+            path.add(state);
+        }
+        long[] states = path.toArray();
+        for (int i = 0, j = states.length - 1; i < j; i++, j--)
+        {
+            long swap = states[i];
+            states[i] = states[j];
+            states[j] = swap;
+        }
+        return states;
+    }
+
+    public double statesPerSecond()
+    {
+        return nanos == 0 ? 0 : expanded * 1e9 / nanos;
+    }
+
+    public String toString()
+    {
+        return (found ? "Found at distance " + distance : "Not found")
+                + " after expanding " + Progress.formatCount(expanded) + " states ("
+                + Progress.formatCount((long)statesPerSecond()) + "/s, "
+                + Progress.formatCount(visited()) + " seen)";
+    }
+}
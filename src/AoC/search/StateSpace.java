@@ -0,0 +1,64 @@
+package AoC.search;
+
+/**
+ * The states of a search, and the moves between them.
+ *
+ * Each state is packed into a long: say a position as pack(x, y), or several small
+ * fields shifted into place. That way the search keeps its visited states and distances
+ * in primitive tables, and never allocates a state object. All the search needs to know
+ * is each state's neighbours:
+ *
+ *   StateSpace maze = (state, out) -> {
+ *       int x = StateSpace.high(state), y = StateSpace.low(state);
+ *       if (open(x + 1, y))
+ *           out.add(StateSpace.pack(x + 1, y));
+ *       ...
+ *   };
+ */
+@FunctionalInterface
+public interface StateSpace
+{
+    /**
+     * Receives the neighbours of a state
+     */
+    interface Neighbors
+    {
+        /**
+         * One move, from the state being expanded to the given state, at the given cost
+         * (which must not be negative)
+         */
+        void add(long state, long cost);
+
+        /**
+         * One move of cost 1
+         */
+        default void add(long state)
+        {
+            add(state, 1);
+        }
+    }
+
+    /**
+     * Pass every state reachable in one move from the given state to out.add().
+     * Don't keep out beyond the call: it is reused for every state.
+     */
+    void neighbors(long state, Neighbors out);
+
+    /**
+     * Pack two ints into a state
+     */
+    static long pack(int high, int low)
+    {
+        return (long)high << 32 | (low & 0xFFFFFFFFL);
+    }
+
+    static int high(long state)
+    {
+        return (int)(state >> 32);
+    }
+
+    static int low(long state)
+    {
+        return (int)state;
+    }
+}
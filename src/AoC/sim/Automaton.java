@@ -0,0 +1,226 @@
+package AoC.sim;
+
+import java.util.stream.IntStream;
+
+import AoC.ADay;
+
+/**
+ * Runs a LifeRule over a BitGrid, 64 cells at a time.
+ *
+ * Each word of the grid is lined up with its neighbours (shifted a bit left or right,
+ * and from the rows above and below), and the neighbours are summed with bit-sliced
+ * adders: 64 four-bit counts at once, one bit of each in each of four longs. The rule
+ * then picks each cell's next state from its count, again 64 cells at once. The next
+ * generation is written to a second grid, and the two are swapped, so stepping allocates
+ * nothing. Cells outside the grid are always off.
+ *
+ *   Automaton lights = new Automaton(BitGrid.parse(input, '#'), LifeRule.LIFE, Neighborhood.MOORE);
+ *   lights.step(100);
+ *   return lights.grid().count();
+ *
+ * Big grids can be stepped in parallel, in stripes of rows (see parallel()).
+ * An Automaton is a Simulation, so CycleFinder can skip ahead through it.
+ */
+public class Automaton implements Simulation
+{
+    /** Grids smaller than this many words aren't worth splitting between threads */
+    private static final int PARALLEL_WORDS = 1 << 14;
+
+    private final Neighborhood _neighborhood;
+    /** The neighbour counts whose cells become on whatever they were */
+    private final int _always;
+    /** ... that turn an off cell on (but an on cell off) */
+    private final int _birthOnly;
+    /** ... that keep an on cell on (but leave an off cell off) */
+    private final int _surviveOnly;
+    private BitGrid _grid;
+    private BitGrid _next;
+    private BitGrid _pinned;
+    private boolean _parallel;
+    private long _generation;
+
+    /**
+     * @param grid the first generation (which the automaton then steps in place)
+     */
+    public Automaton(BitGrid grid, LifeRule rule, Neighborhood neighborhood)
+    {
+        _neighborhood = neighborhood;
+        int counts = (1 << (neighborhood.size + 1)) - 1;
+        _always = rule.birth & rule.survive & counts;
+        _birthOnly = rule.birth & ~rule.survive & counts;
+        _surviveOnly = rule.survive & ~rule.birth & counts;
+        _grid = grid;
+        _next = new BitGrid(grid.width(), grid.height());
+    }
+
+    /**
+     * Step big grids on all cores, each taking a stripe of rows
+     */
+    public Automaton parallel(boolean parallel)
+    {
+        _parallel = parallel;
+        return this;
+    }
+
+    /**
+     * Keep these cells on, whatever the rule says (e.g. stuck lights)
+     */
+    public Automaton pin(BitGrid pinned)
+    {
+        _grid.checkSameSize(pinned);
+        _pinned = pinned;
+        _grid.or(pinned);
+        return this;
+    }
+
+    /**
+     * The current generation. It is stepped in place, so copy it to keep it.
+     */
+    public BitGrid grid()
+    {
+        return _grid;
+    }
+
+    /**
+     * How many steps have been taken
+     */
+    public long generation()
+    {
+        return _generation;
+    }
+
+    public void step(long generations)
+    {
+        for (long i = 0; i < generations; i++)
+        {
+            step();
+            ADay.checkCancelled();
+        }
+    }
+
+    @Override
+    public void step()
+    {
+        int height = _grid.height();
+        if (_parallel && _grid._words.length >= PARALLEL_WORDS && height > 1)
+        {
+            int stripes = Math.min(height, Runtime.getRuntime().availableProcessors() * 4);
+            IntStream.range(0, stripes).parallel().forEach(s -> stepRows(height * s / stripes, height * (s + 1) / stripes));
+        }
+        else
+        {
+            stepRows(0, height);
+        }
+
+        BitGrid swap = _grid;
+        _grid = _next;
+        _next = swap;
+        if (_pinned != null)
+            _grid.or(_pinned);
+        _generation++;
+    }
+
+    @Override
+    public Fingerprint fingerprint()
+    {
+        return _grid.fingerprint();
+    }
+
+    private void stepRows(int fromRow, int toRow)
+    {
+        long[] cells = _grid._words;
+        long[] next = _next._words;
+        int wordsPerRow = _grid.wordsPerRow();
+        int height = _grid.height();
+        long lastMask = _grid.lastWordMask();
+        boolean moore = _neighborhood == Neighborhood.MOORE;
+
+        for (int y = fromRow; y < toRow; y++)
+        {
+            int row = y * wordsPerRow;
+            int up = row - wordsPerRow, down = row + wordsPerRow;
+            boolean hasUp = y > 0, hasDown = y < height - 1;
+            for (int w = 0; w < wordsPerRow; w++)
+            {
+                boolean hasLeft = w > 0, hasRight = w < wordsPerRow - 1;
+
+                // This word and its neighbours, lined up over each cell
+                long c = cells[row + w];
+                long west = c << 1 | (hasLeft ? cells[row + w - 1] >>> 63 : 0);
+                long east = c >>> 1 | (hasRight ? cells[row + w + 1] << 63 : 0);
+                long north = 0, northWest = 0, northEast = 0;
+                if (hasUp)
+                {
+                    long n = cells[up + w];
+                    north = n;
+                    northWest = n << 1 | (hasLeft ? cells[up + w - 1] >>> 63 : 0);
+                    northEast = n >>> 1 | (hasRight ? cells[up + w + 1] << 63 : 0);
+                }
+                long south = 0, southWest = 0, southEast = 0;
+                if (hasDown)
+                {
+                    long s = cells[down + w];
+                    south = s;
+                    southWest = s << 1 | (hasLeft ? cells[down + w - 1] >>> 63 : 0);
+                    southEast = s >>> 1 | (hasRight ? cells[down + w + 1] << 63 : 0);
+                }
+
+                // Sum the neighbours with bit-sliced adders, into the count's bits b0..b3
+                long b0, b1, b2, b3;
+                if (moore)
+                {
+                    // Full adders on three inputs each, and a half adder on the last two: ones and twos
+                    long x1 = north ^ northWest, s1 = x1 ^ northEast, c1 = north & northWest | northEast & x1;
+                    long x2 = west ^ east, s2 = x2 ^ south, c2 = west & east | south & x2;
+                    long s3 = southWest ^ southEast, c3 = southWest & southEast;
+                    // The ones
+                    long x4 = s1 ^ s2;
+                    b0 = x4 ^ s3;
+                    long c4 = s1 & s2 | s3 & x4;
+                    // The twos (four carries of weight 2)
+                    long x5 = c1 ^ c2, t5 = x5 ^ c3, c5 = c1 & c2 | c3 & x5;
+                    b1 = t5 ^ c4;
+                    long c6 = t5 & c4;
+                    // The fours
+                    b2 = c5 ^ c6;
+                    b3 = c5 & c6;
+                }
+                else
+                {
+                    long s1 = north ^ south, c1 = north & south;
+                    long s2 = west ^ east, c2 = west & east;
+                    b0 = s1 ^ s2;
+                    long c3 = s1 & s2;
+                    long x4 = c1 ^ c2;
+                    b1 = x4 ^ c3;
+                    b2 = c1 & c2 | c3 & x4;
+                    b3 = 0;
+                }
+
+                long result = 0;
+                for (int count = 0; count <= _neighborhood.size; count++)
+                {
+                    int bit = 1 << count;
+                    if (((_always | _birthOnly | _surviveOnly) & bit) == 0)
+                        continue;
+                    long match = ((count & 1) != 0 ? b0 : ~b0) & ((count & 2) != 0 ? b1 : ~b1)
+                            & ((count & 4) != 0 ? b2 : ~b2) & ((count & 8) != 0 ? b3 : ~b3);
+                    if ((_always & bit) != 0)
+                        result |= match;
+                    else if ((_birthOnly & bit) != 0)
+                        result |= match & ~c;
+                    else
+                        result |= match & c;
+                }
+                if (!hasRight)
+                    result &= lastMask;
+                next[row + w] = result;
+            }
+        }
+    }
+
+    public String toString()
+    {
+        return "Generation " + _generation + ", " + _grid.count() + " on\n" + _grid;
+    }
+}
@@ -0,0 +1,203 @@
+package AoC.sim;
+
+import java.util.Arrays;
+
+import AoC.Reader;
+import AoC.collections.SparseGrid;
+
+/**
+ * A grid of on/off cells, 64 to a long: each row is a run of longs, with bit i of
+ * a row's word w holding the cell at x = 64 * w + i. Bits past the right edge are
+ * always 0, so whole words can be counted and compared.
+ *
+ *   BitGrid lights = BitGrid.parse(input, '#');
+ */
+public class BitGrid
+{
+    private final int _width;
+    private final int _height;
+    private final int _wordsPerRow;
+    final long[] _words;
+
+    public BitGrid(int width, int height)
+    {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("A grid must be at least 1x1, not " + width + "x" + height);
+        _width = width;
+        _height = height;
+        _wordsPerRow = (width + 63) >>> 6;
+        _words = new long[_wordsPerRow * height];
+    }
+
+    /**
+     * A grid from the lines of the input, with each cell that is the 'on' character set.
+     * The grid is as wide as the longest line; blank lines at the end are left out.
+     */
+    public static BitGrid parse(Reader input, char on)
+    {
+        return parse(input.allLineStrings(), on);
+    }
+
+    public static BitGrid parse(String[] lines, char on)
+    {
+        int height = lines.length;
+        while (height > 0 && lines[height - 1].trim().isEmpty())
+            height--;
+        int width = 0;
+        for (int y = 0; y < height; y++)
+            width = Math.max(width, stripCR(lines[y]).length());
+        BitGrid grid = new BitGrid(width, height);
+        for (int y = 0; y < height; y++)
+        {
+            String line = stripCR(lines[y]);
+            for (int x = 0; x < line.length(); x++)
+            {
+                if (line.charAt(x) == on)
+                    grid.set(x, y, true);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * A dense copy of a 2D sparse grid, once its extent is known: the grid spans the
+     * sparse grid's bounding box, so cell (x, y) here is the sparse cell
+     * (x + sparse.min(0), y + sparse.min(1)). A cell is on if it's set to anything but 0.
+     */
+    public static BitGrid from(SparseGrid sparse)
+    {
+        if (sparse.dimensions() != 2)
+            throw new IllegalArgumentException("Only a 2D grid can be made dense, not " + sparse.dimensions() + "D");
+        int left = sparse.min(0), top = sparse.min(1);
+        BitGrid grid = new BitGrid(sparse.extent(0), sparse.extent(1));
+        sparse.forEach((key, value) -> {
+            if (value != 0)
+                grid.set(sparse.x(key) - left, sparse.y(key) - top, true);
+        });
+        return grid;
+    }
+
+    private static String stripCR(String line)
+    {
+        return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+    }
+
+    public int width()
+    {
+        return _width;
+    }
+
+    public int height()
+    {
+        return _height;
+    }
+
+    int wordsPerRow()
+    {
+        return _wordsPerRow;
+    }
+
+    /**
+     * The bits that are inside the grid, in a row's last word
+     */
+    long lastWordMask()
+    {
+        int bits = _width & 63;
+        return bits == 0 ? -1L : (1L << bits) - 1;
+    }
+
+    /**
+     * Is the cell on? Cells outside the grid are off.
+     */
+    public boolean get(int x, int y)
+    {
+        if (x < 0 || y < 0 || x >= _width || y >= _height)
+            return false;
+        return (_words[y * _wordsPerRow + (x >>> 6)] >>> x & 1) != 0;
+    }
+
+    public void set(int x, int y, boolean on)
+    {
+        if (x < 0 || y < 0 || x >= _width || y >= _height)
+            throw new IndexOutOfBoundsException("(" + x + ", " + y + ") is outside the " + _width + "x" + _height + " grid");
+        int index = y * _wordsPerRow + (x >>> 6);
+        if (on)
+            _words[index] |= 1L << x;
+        else
+            _words[index] &= ~(1L << x);
+    }
+
+    /**
+     * How many cells are on
+     */
+    public long count()
+    {
+        long count = 0;
+        for (long word : _words)
+            count += Long.bitCount(word);
+        return count;
+    }
+
+    /**
+     * Turn on every cell that is on in the other grid (of the same size)
+     */
+    public void or(BitGrid other)
+    {
+        checkSameSize(other);
+        for (int i = 0; i < _words.length; i++)
+            _words[i] |= other._words[i];
+    }
+
+    void checkSameSize(BitGrid other)
+    {
+        if (other._width != _width || other._height != _height)
+            throw new IllegalArgumentException("A " + other._width + "x" + other._height + " grid doesn't match a " + _width + "x" + _height + " grid");
+    }
+
+    public void clear()
+    {
+        Arrays.fill(_words, 0);
+    }
+
+    public BitGrid copy()
+    {
+        BitGrid copy = new BitGrid(_width, _height);
+        System.arraycopy(_words, 0, copy._words, 0, _words.length);
+        return copy;
+    }
+
+    public Fingerprint fingerprint()
+    {
+        return new Fingerprint.Builder().add(_words).add(_width).build();
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        if (!(other instanceof BitGrid))
+            return false;
+        BitGrid that = (BitGrid)other;
+        return _width == that._width && _height == that._height && Arrays.equals(_words, that._words);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Arrays.hashCode(_words) * 31 + _width;
+    }
+
+    /**
+     * The grid as lines of '#' and '.'
+     */
+    public String toString()
+    {
+        StringBuilder text = new StringBuilder((_width + 1) * _height);
+        for (int y = 0; y < _height; y++)
+        {
+            for (int x = 0; x < _width; x++)
+                text.append(get(x, y) ? '#' : '.');
+            text.append('\n');
+        }
+        return text.toString();
+    }
+}
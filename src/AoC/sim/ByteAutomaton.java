@@ -0,0 +1,142 @@
+package AoC.sim;
+
+import java.util.stream.IntStream;
+
+import AoC.ADay;
+
+/**
+ * Runs a rule of your own over a ByteGrid, for cells with more than two states.
+ * For each cell, the rule gets the cell's state and how many of its neighbours are
+ * in each state, and returns the cell's next state:
+ *
+ *   ByteAutomaton forest = new ByteAutomaton(ByteGrid.parse(input, ".|#"), Neighborhood.MOORE,
+ *           (cell, counts) -> cell == OPEN && counts[TREES] >= 3 ? TREES : ...);
+ *   forest.step(10);
+ *
+ * As with Automaton, the next generation goes into a second grid and the two are
+ * swapped, big grids can be stepped in parallel, and it is a Simulation for CycleFinder.
+ */
+public class ByteAutomaton implements Simulation
+{
+    private static final int PARALLEL_CELLS = 1 << 16;
+
+    /**
+     * The next state of one cell
+     */
+    @FunctionalInterface
+    public interface Rule
+    {
+        /**
+         * @param cell the cell's state
+         * @param counts how many neighbours are in each state (indexed by state, 0 to 255),
+         *               including the neighbours outside the grid, in its outside state.
+         *               Only read it: it is reused for every cell.
+         * @return the cell's next state
+         */
+        int next(int cell, int[] counts);
+    }
+
+    private final Rule _rule;
+    private final int[] _offsets;
+    private ByteGrid _grid;
+    private ByteGrid _next;
+    private boolean _parallel;
+    private long _generation;
+
+    /**
+     * @param grid the first generation (which the automaton then steps in place)
+     */
+    public ByteAutomaton(ByteGrid grid, Neighborhood neighborhood, Rule rule)
+    {
+        _rule = rule;
+        _grid = grid;
+        _next = grid.copy();
+        int stride = grid._stride;
+        _offsets = neighborhood == Neighborhood.MOORE
+                ? new int[] { -stride - 1, -stride, -stride + 1, -1, 1, stride - 1, stride, stride + 1 }
+                : new int[] { -stride, -1, 1, stride };
+    }
+
+    /**
+     * Step big grids on all cores, each taking a stripe of rows.
+     * The rule must then be safe to call from several threads at once.
+     */
+    public ByteAutomaton parallel(boolean parallel)
+    {
+        _parallel = parallel;
+        return this;
+    }
+
+    /**
+     * The current generation. It is stepped in place, so copy it to keep it.
+     */
+    public ByteGrid grid()
+    {
+        return _grid;
+    }
+
+    public long generation()
+    {
+        return _generation;
+    }
+
+    public void step(long generations)
+    {
+        for (long i = 0; i < generations; i++)
+        {
+            step();
+            ADay.checkCancelled();
+        }
+    }
+
+    @Override
+    public void step()
+    {
+        int height = _grid.height();
+        if (_parallel && (long)_grid.width() * height >= PARALLEL_CELLS && height > 1)
+        {
+            int stripes = Math.min(height, Runtime.getRuntime().availableProcessors() * 4);
+            IntStream.range(0, stripes).parallel().forEach(s -> stepRows(height * s / stripes, height * (s + 1) / stripes));
+        }
+        else
+        {
+            stepRows(0, height);
+        }
+        ByteGrid swap = _grid;
+        _grid = _next;
+        _next = swap;
+        _generation++;
+    }
+
+    @Override
+    public Fingerprint fingerprint()
+    {
+        return _grid.fingerprint();
+    }
+
+    private void stepRows(int fromRow, int toRow)
+    {
+        byte[] cells = _grid._cells;
+        byte[] next = _next._cells;
+        int[] offsets = _offsets;
+        int[] counts = new int[256];
+        int width = _grid.width();
+        for (int y = fromRow; y < toRow; y++)
+        {
+            for (int i = _grid.index(0, y), end = i + width; i < end; i++)
+            {
+                for (int offset : offsets)
+                    counts[cells[i + offset] & 0xFF]++;
+                next[i] = (byte)_rule.next(cells[i] & 0xFF, counts);
+                // Undo just the counts we touched, rather than clearing all 256
+                for (int offset : offsets)
+                    counts[cells[i + offset] & 0xFF]--;
+            }
+        }
+    }
+
+    public String toString()
+    {
+        return "Generation " + _generation + "\n" + _grid;
+    }
+}
@@ -0,0 +1,170 @@
+package AoC.sim;
+
+import java.util.Arrays;
+
+import AoC.Reader;
+
+/**
+ * A grid of cells with more states than on and off: one byte each, 0 to 255.
+ *
+ * The grid keeps a border of one cell all round, set to its outside state, so a cell's
+ * neighbours can be read without checking the edges. Make the outside state one that
+ * no cell takes, and a rule can tell the edge apart from real cells.
+ *
+ *   ByteGrid forest = ByteGrid.parse(input, ".|#");   // open 0, trees 1, lumberyard 2; outside 3
+ */
+public class ByteGrid
+{
+    private final int _width;
+    private final int _height;
+    private final byte _outside;
+    /** Shows each state in toString(), or null to show its number */
+    private final String _symbols;
+    /** A row, border included */
+    final int _stride;
+    final byte[] _cells;
+
+    public ByteGrid(int width, int height, byte outside)
+    {
+        this(width, height, outside, null);
+    }
+
+    private ByteGrid(int width, int height, byte outside, String symbols)
+    {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("A grid must be at least 1x1, not " + width + "x" + height);
+        _width = width;
+        _height = height;
+        _outside = outside;
+        _symbols = symbols;
+        _stride = width + 2;
+        _cells = new byte[_stride * (height + 2)];
+        Arrays.fill(_cells, outside);
+        for (int y = 0; y < height; y++)
+            Arrays.fill(_cells, index(0, y), index(width, y), (byte)0);
+    }
+
+    /**
+     * A grid from the lines of the input, each character being the state of its
+     * position in symbols. The outside state is symbols.length().
+     */
+    public static ByteGrid parse(Reader input, String symbols)
+    {
+        return parse(input.allLineStrings(), symbols);
+    }
+
+    public static ByteGrid parse(String[] lines, String symbols)
+    {
+        if (symbols.length() > 255)
+            throw new IllegalArgumentException("At most 255 states, not " + symbols.length());
+        int height = lines.length;
+        while (height > 0 && lines[height - 1].trim().isEmpty())
+            height--;
+        int width = 0;
+        for (int y = 0; y < height; y++)
+            width = Math.max(width, lines[y].replace("\r", "").length());
+        ByteGrid grid = new ByteGrid(width, height, (byte)symbols.length(), symbols);
+        for (int y = 0; y < height; y++)
+        {
+            String line = lines[y].replace("\r", "");
+            for (int x = 0; x < line.length(); x++)
+            {
+                int state = symbols.indexOf(line.charAt(x));
+                if (state < 0)
+                    throw new IllegalArgumentException("'" + line.charAt(x) + "' at (" + x + ", " + y + ") isn't one of \"" + symbols + "\"");
+                grid._cells[grid.index(x, y)] = (byte)state;
+            }
+        }
+        return grid;
+    }
+
+    final int index(int x, int y)
+    {
+        return (y + 1) * _stride + x + 1;
+    }
+
+    public int width()
+    {
+        return _width;
+    }
+
+    public int height()
+    {
+        return _height;
+    }
+
+    /**
+     * The state of every cell outside the grid
+     */
+    public int outside()
+    {
+        return _outside & 0xFF;
+    }
+
+    /**
+     * A cell's state, or the outside state if it's outside the grid
+     */
+    public int get(int x, int y)
+    {
+        if (x < 0 || y < 0 || x >= _width || y >= _height)
+            return _outside & 0xFF;
+        return _cells[index(x, y)] & 0xFF;
+    }
+
+    public void set(int x, int y, int state)
+    {
+        if (x < 0 || y < 0 || x >= _width || y >= _height)
+            throw new IndexOutOfBoundsException("(" + x + ", " + y + ") is outside the " + _width + "x" + _height + " grid");
+        _cells[index(x, y)] = (byte)state;
+    }
+
+    /**
+     * How many cells are in the given state
+     */
+    public long count(int state)
+    {
+        long count = 0;
+        for (int y = 0; y < _height; y++)
+        {
+            for (int i = index(0, y), end = index(_width, y); i < end; i++)
+            {
+                if ((_cells[i] & 0xFF) == state)
+                    count++;
+            }
+        }
+        return count;
+    }
+
+    public ByteGrid copy()
+    {
+        ByteGrid copy = new ByteGrid(_width, _height, _outside, _symbols);
+        System.arraycopy(_cells, 0, copy._cells, 0, _cells.length);
+        return copy;
+    }
+
+    public Fingerprint fingerprint()
+    {
+        return new Fingerprint.Builder().add(_cells).add(_width).build();
+    }
+
+    /**
+     * The grid as lines of its symbols (or of digits, for a grid that wasn't parsed)
+     */
+    public String toString()
+    {
+        StringBuilder text = new StringBuilder();
+        for (int y = 0; y < _height; y++)
+        {
+            for (int x = 0; x < _width; x++)
+            {
+                int state = get(x, y);
+                if (_symbols != null && state < _symbols.length())
+                    text.append(_symbols.charAt(state));
+                else
+                    text.append(Character.forDigit(state % 36, 36));
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,45 @@
+package AoC.sim;
+
+/**
+ * Where a deterministic simulation starts repeating itself: the state at step
+ * start + length is the state at step start, and so on forever after.
+ */
+public class Cycle
+{
+    /** The first step of the cycle (the number of steps before it) */
+    public final long start;
+    /** How many steps until a state comes round again */
+    public final long length;
+
+    public Cycle(long start, long length)
+    {
+        this.start = start;
+        this.length = length;
+    }
+
+    /**
+     * The earliest step whose state is the same as step n's
+     */
+    public long equivalentStep(long n)
+    {
+        if (n < start)
+            return n;
+        return start + (n - start) % length;
+    }
+
+    /**
+     * How many steps to take from step current to reach the state of step n,
+     * both of which must be in the cycle (at least start)
+     */
+    public long stepsToReach(long n, long current)
+    {
+        if (current < start || n < start)
+            throw new IllegalArgumentException("Steps " + current + " and " + n + " must not be before the cycle starts at " + start);
+        return Math.floorMod(n - current, length);
+    }
+
+    public String toString()
+    {
+        return "Cycle of length " + length + " from step " + start;
+    }
+}
@@ -0,0 +1,234 @@
+package AoC.sim;
+
+import java.util.function.Function;
+import java.util.function.LongUnaryOperator;
+import java.util.function.UnaryOperator;
+
+import AoC.ADay;
+import AoC.collections.LongList;
+import AoC.collections.LongLongMap;
+
+/**
+ * Finds where a deterministic simulation starts to repeat, so the state after a billion
+ * steps can be found after a few thousand.
+ *
+ * Two ways to find the cycle:
+ *   brent()    Brent's algorithm: constant memory, but it runs two copies of the simulation,
+ *              so each step must make a new state (or the state must be a packed long)
+ *   history()  remembers every state's fingerprint: memory grows with the steps taken,
+ *              but the simulation can change its state in place, and each step is taken once
+ *
+ * and stateAt() / advanceTo() go straight to the state at step n:
+ *   CycleFinder.advanceTo(platform, 1_000_000_000L);
+ *   return platform.load();
+ */
+public final class CycleFinder
+{
+    private CycleFinder()
+    {
+    }
+
+    /**
+     * Find the cycle of a state packed into a long, in constant memory
+     */
+    public static Cycle brent(long start, LongUnaryOperator step)
+    {
+        // Find the length: the hare runs ahead, and the tortoise jumps to it at each power of 2
+        long power = 1, length = 1;
+        long tortoise = start, hare = step.applyAsLong(start);
+        long steps = 1;
+        while (tortoise != hare)
+        {
+            if (power == length)
+            {
+                tortoise = hare;
+                power *= 2;
+                length = 0;
+            }
+            hare = step.applyAsLong(hare);
+            length++;
+            if ((++steps & 0xFFF) == 0)
+                ADay.checkCancelled();
+        }
+
+        // Find the start: run two states length apart until they meet
+        tortoise = hare = start;
+        for (long i = 0; i < length; i++)
+            hare = step.applyAsLong(hare);
+        long first = 0;
+        while (tortoise != hare)
+        {
+            tortoise = step.applyAsLong(tortoise);
+            hare = step.applyAsLong(hare);
+            first++;
+        }
+        return new Cycle(first, length);
+    }
+
+    /**
+     * Find the cycle of a state packed into a long, by remembering every state
+     * (fewer steps than brent(), but memory for each)
+     */
+    public static Cycle history(long start, LongUnaryOperator step)
+    {
+        LongLongMap seen = new LongLongMap(1024, -1);
+        long state = start;
+        for (long n = 0; ; n++)
+        {
+            long previous = seen.put(state, n);
+            if (previous >= 0)
+                return new Cycle(previous, n - previous);
+            state = step.applyAsLong(state);
+            if ((n & 0xFFF) == 0xFFF)
+                ADay.checkCancelled();
+        }
+    }
+
+    /**
+     * The state at step n, without taking anywhere near n steps (if it cycles)
+     */
+    public static long stateAt(long start, LongUnaryOperator step, long n)
+    {
+        // Remember the states in order, so the answer is a lookup once the cycle is found
+        LongLongMap seen = new LongLongMap(1024, -1);
+        LongList states = new LongList();
+        long state = start;
+        for (long i = 0; i < n; i++)
+        {
+            long previous = seen.put(state, i);
+            if (previous >= 0)
+                return states.get((int)new Cycle(previous, i - previous).equivalentStep(n));
+            states.add(state);
+            state = step.applyAsLong(state);
+            if ((i & 0xFFF) == 0xFFF)
+                ADay.checkCancelled();
+        }
+        return state;
+    }
+
+    /**
+     * Find the cycle of any state, by Brent's algorithm. Each step must return a new
+     * state, leaving the old one as it was; states are compared by fingerprint.
+     */
+    public static <S> Cycle brent(S start, UnaryOperator<S> step, Function<S, Fingerprint> fingerprint)
+    {
+        return brent(start, step, fingerprint, Long.MAX_VALUE);
+    }
+
+    /**
+     * Brent's algorithm, giving up once the hare has taken limit steps
+     *
+     * @return the cycle, or null if it was not found within limit steps
+     */
+    private static <S> Cycle brent(S start, UnaryOperator<S> step, Function<S, Fingerprint> fingerprint, long limit)
+    {
+        long power = 1, length = 1;
+        S hare = step.apply(start);
+        Fingerprint tortoisePrint = fingerprint.apply(start);
+        Fingerprint harePrint = fingerprint.apply(hare);
+        long steps = 1;
+        while (!tortoisePrint.equals(harePrint))
+        {
+            if (steps >= limit)
+                return null;
+            if (power == length)
+            {
+                tortoisePrint = harePrint;
+                power *= 2;
+                length = 0;
+            }
+            hare = step.apply(hare);
+            harePrint = fingerprint.apply(hare);
+            length++;
+            if ((++steps & 0xFFF) == 0)
+                ADay.checkCancelled();
+        }
+
+        S tortoise = start;
+        hare = start;
+        for (long i = 0; i < length; i++)
+            hare = step.apply(hare);
+        tortoisePrint = fingerprint.apply(tortoise);
+        harePrint = fingerprint.apply(hare);
+        long first = 0;
+        while (!tortoisePrint.equals(harePrint))
+        {
+            tortoise = step.apply(tortoise);
+            hare = step.apply(hare);
+            tortoisePrint = fingerprint.apply(tortoise);
+            harePrint = fingerprint.apply(hare);
+            first++;
+        }
+        return new Cycle(first, length);
+    }
+
+    /**
+     * Find the cycle of a simulation that changes in place, by remembering each
+     * step's fingerprint. Leaves the simulation at step start + length of the cycle
+     * (whose state is that of step start).
+     */
+    public static Cycle history(Simulation simulation)
+    {
+        return advance(simulation, Long.MAX_VALUE);
+    }
+
+    /**
+     * Take the simulation from step 0 (where it is now) to step n, skipping every
+     * whole lap of its cycle
+     *
+     * @return the cycle, or null if step n came before the cycle was found
+     */
+    public static Cycle advanceTo(Simulation simulation, long n)
+    {
+        Cycle cycle = advance(simulation, n);
+        if (cycle != null)
+        {
+            long current = cycle.start + cycle.length;
+            for (long i = cycle.stepsToReach(n, current); i > 0; i--)
+                simulation.step();
+        }
+        return cycle;
+    }
+
+    /**
+     * Step until a state repeats, or step n is reached
+     */
+    private static Cycle advance(Simulation simulation, long n)
+    {
+        // Each step's fingerprint: its high half as the key, its low half checked separately
+        LongLongMap seen = new LongLongMap(1024, -1);
+        LongList lows = new LongList();
+        for (long i = 0; i < n; i++)
+        {
+            Fingerprint print = simulation.fingerprint();
+            long previous = seen.get(print.high);
+            if (previous >= 0 && lows.get((int)previous) == print.low)
+                return new Cycle(previous, i - previous);
+            if (previous < 0)
+                seen.put(print.high, i);
+            lows.add(print.low);
+            simulation.step();
+            if ((i & 0xFFF) == 0xFFF)
+                ADay.checkCancelled();
+        }
+        return null;
+    }
+
+    /**
+     * The state at step n of a simulation whose steps make new states
+     */
+    public static <S> S stateAt(S start, UnaryOperator<S> step, Function<S, Fingerprint> fingerprint, long n)
+    {
+        // Don't look further for the cycle than step n: if it isn't found by then, just step there
+        Cycle cycle = brent(start, step, fingerprint, n);
+        long steps = cycle == null ? n : cycle.equivalentStep(n);
+        S state = start;
+        for (long i = steps; i > 0; i--)
+        {
+            state = step.apply(state);
+            if ((i & 0xFFF) == 0)
+                ADay.checkCancelled();
+        }
+        return state;
+    }
+}
@@ -0,0 +1,162 @@
+package AoC.sim;
+
+/**
+ * A 128-bit hash of a simulation's state, to recognise a state seen before without
+ * keeping the state itself. Two different states share a fingerprint with odds of
+ * about 1 in 2^128 per pair, which for a puzzle is as good as never.
+ *
+ * Fingerprints are values: compare them with equals().
+ */
+public final class Fingerprint
+{
+    private static final long SEED1 = 0x9E3779B97F4A7C15L;
+    private static final long SEED2 = 0xC2B2AE3D27D4EB4FL;
+
+    public final long high;
+    public final long low;
+
+    public Fingerprint(long high, long low)
+    {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Builds a fingerprint from any mix of values, e.g. a grid plus a score:
+     *   new Fingerprint.Builder().add(cells).add(score).build()
+     */
+    public static final class Builder
+    {
+        private long _h1 = SEED1;
+        private long _h2 = SEED2;
+        private long _length;
+
+        public Builder add(long value)
+        {
+            // Two independent streams, so the 128 bits really are 128 bits of hash
+            _h1 = Long.rotateLeft(_h1 ^ value * 0x87C37B91114253D5L, 31) * 5 + 0x52DCE729;
+            _h2 = Long.rotateLeft(_h2 + value * 0x4CF5AD432745937FL, 33) * 0x9E3779B97F4A7C15L;
+            _length++;
+            return this;
+        }
+
+        public Builder add(long[] values)
+        {
+            for (long value : values)
+                add(value);
+            return add(values.length);
+        }
+
+        public Builder add(int[] values)
+        {
+            for (int value : values)
+                add(value);
+            return add(values.length);
+        }
+
+        public Builder add(byte[] bytes)
+        {
+            int i = 0;
+            // Eight bytes at a time
+            for (; i + 8 <= bytes.length; i += 8)
+            {
+                add((bytes[i] & 0xFFL) | (bytes[i + 1] & 0xFFL) << 8 | (bytes[i + 2] & 0xFFL) << 16 | (bytes[i + 3] & 0xFFL) << 24
+                        | (bytes[i + 4] & 0xFFL) << 32 | (bytes[i + 5] & 0xFFL) << 40 | (bytes[i + 6] & 0xFFL) << 48 | (bytes[i + 7] & 0xFFL) << 56);
+            }
+            long tail = 0;
+            for (int shift = 0; i < bytes.length; i++, shift += 8)
+                tail |= (bytes[i] & 0xFFL) << shift;
+            return add(tail).add(bytes.length);
+        }
+
+        public Builder add(char[] chars)
+        {
+            int i = 0;
+            for (; i + 4 <= chars.length; i += 4)
+                add((long)chars[i] | (long)chars[i + 1] << 16 | (long)chars[i + 2] << 32 | (long)chars[i + 3] << 48);
+            long tail = 0;
+            for (int shift = 0; i < chars.length; i++, shift += 16)
+                tail |= (long)chars[i] << shift;
+            return add(tail).add(chars.length);
+        }
+
+        public Fingerprint build()
+        {
+            long h1 = _h1 ^ _length, h2 = _h2 ^ _length;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix(h1);
+            h2 = fmix(h2);
+            h1 += h2;
+            h2 += h1;
+            return new Fingerprint(h1, h2);
+        }
+
+        /** MurmurHash3's finaliser: every input bit affects every output bit */
+        private static long fmix(long h)
+        {
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            return h ^ (h >>> 33);
+        }
+    }
+
+    public static Fingerprint of(long value)
+    {
+        return new Builder().add(value).build();
+    }
+
+    public static Fingerprint of(long[] values)
+    {
+        return new Builder().add(values).build();
+    }
+
+    public static Fingerprint of(byte[] bytes)
+    {
+        return new Builder().add(bytes).build();
+    }
+
+    /**
+     * A fingerprint of a grid of bytes, row by row
+     */
+    public static Fingerprint of(byte[][] grid)
+    {
+        Builder builder = new Builder();
+        for (byte[] row : grid)
+            builder.add(row);
+        return builder.build();
+    }
+
+    /**
+     * A fingerprint of a grid of chars (say, from Reader.allLineStrings()), row by row
+     */
+    public static Fingerprint of(char[][] grid)
+    {
+        Builder builder = new Builder();
+        for (char[] row : grid)
+            builder.add(row);
+        return builder.build();
+    }
+
+    @Override
+    public boolean equals(Object other)
+    {
+        if (!(other instanceof Fingerprint))
+            return false;
+        Fingerprint that = (Fingerprint)other;
+        return high == that.high && low == that.low;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return (int)high;
+    }
+
+    public String toString()
+    {
+        return String.format("%016x%016x", high, low);
+    }
+}
@@ -0,0 +1,71 @@
+package AoC.sim;
+
+/**
+ * A rule for on/off cells that depends only on how many neighbours are on:
+ * which counts turn an off cell on (birth), and which keep an on cell on (survival).
+ * Written the usual way, Conway's Game of Life is "B3/S23".
+ */
+public class LifeRule
+{
+    public static final LifeRule LIFE = parse("B3/S23");
+
+    /** Bit n set if an off cell with n neighbours on turns on */
+    final int birth;
+    /** Bit n set if an on cell with n neighbours on stays on */
+    final int survive;
+
+    public LifeRule(int birth, int survive)
+    {
+        this.birth = birth;
+        this.survive = survive;
+    }
+
+    /**
+     * A rule in B/S notation, e.g. "B3/S23", or "B1/S" for a cell that turns on
+     * next to exactly one light and never stays on
+     */
+    public static LifeRule parse(String rule)
+    {
+        String[] halves = rule.trim().toUpperCase().split("/");
+        if (halves.length != 2 || !halves[0].startsWith("B") || !halves[1].startsWith("S"))
+            throw new IllegalArgumentException("Expected a rule like B3/S23, not " + rule);
+        return new LifeRule(counts(halves[0].substring(1), rule), counts(halves[1].substring(1), rule));
+    }
+
+    private static int counts(String digits, String rule)
+    {
+        int counts = 0;
+        for (char c : digits.toCharArray())
+        {
+            if (c < '0' || c > '8')
+                throw new IllegalArgumentException("Expected neighbour counts from 0 to 8 in " + rule);
+            counts |= 1 << (c - '0');
+        }
+        return counts;
+    }
+
+    /**
+     * The next state of one cell
+     */
+    public boolean next(boolean on, int neighbors)
+    {
+        return ((on ? survive : birth) >>> neighbors & 1) != 0;
+    }
+
+    public String toString()
+    {
+        StringBuilder text = new StringBuilder("B");
+        for (int n = 0; n <= 8; n++)
+        {
+            if ((birth >>> n & 1) != 0)
+                text.append(n);
+        }
+        text.append("/S");
+        for (int n = 0; n <= 8; n++)
+        {
+            if ((survive >>> n & 1) != 0)
+                text.append(n);
+        }
+        return text.toString();
+    }
+}
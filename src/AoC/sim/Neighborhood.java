@@ -0,0 +1,20 @@
+package AoC.sim;
+
+/**
+ * Which cells count as a cell's neighbours
+ */
+public enum Neighborhood
+{
+    /** The 8 cells around it, diagonals included */
+    MOORE(8),
+    /** The 4 cells that share an edge with it */
+    VON_NEUMANN(4);
+
+    /** The most neighbours a cell can have */
+    public final int size;
+
+    Neighborhood(int size)
+    {
+        this.size = size;
+    }
+}
@@ -0,0 +1,18 @@
+package AoC.sim;
+
+/**
+ * A deterministic simulation that advances one step at a time, in place:
+ * the same state always leads to the same next state.
+ */
+public interface Simulation
+{
+    /**
+     * Advance one step
+     */
+    void step();
+
+    /**
+     * The current state's fingerprint, e.g. Fingerprint.of(grid)
+     */
+    Fingerprint fingerprint();
+}